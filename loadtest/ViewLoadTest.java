@@ -0,0 +1,84 @@
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.Locale;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * A standalone load test of the read endpoint against a running instance, simulating many dashboards
+ * polling {@code GET /api/weather_station} at the same time.
+ * <p>
+ * The requests are sent asynchronously through a single {@link HttpClient}, with at most the given number of
+ * requests in flight, so the client does not need a thread per simulated poller. It lives outside the
+ * application's source tree and is not shipped with it; run it with
+ * {@code java ViewLoadTest.java [baseUrl] [concurrency] [seconds]}, e.g.
+ * {@code java ViewLoadTest.java http://localhost:8080 2000 30}.
+ * </p>
+ * <p>
+ * Both 200 (OK) and 404 (NOT FOUND, no data decoded yet) answers count as successful responses, since both are
+ * served from the published snapshot.
+ * </p>
+ */
+public class ViewLoadTest {
+
+    public static void main(String[] args) throws InterruptedException {
+        String baseUrl = args.length > 0 ? args[0] : "http://localhost:8080";
+        int concurrency = args.length > 1 ? Integer.parseInt(args[1]) : 1000;
+        int seconds = args.length > 2 ? Integer.parseInt(args[2]) : 30;
+
+        HttpClient client = HttpClient.newBuilder()
+                .connectTimeout(Duration.ofSeconds(5))
+                .build();
+        HttpRequest request = HttpRequest.newBuilder(URI.create(baseUrl + "/api/weather_station"))
+                .timeout(Duration.ofSeconds(10))
+                .GET()
+                .build();
+
+        Semaphore inFlight = new Semaphore(concurrency);
+        LongAdder responses = new LongAdder();
+        LongAdder failures = new LongAdder();
+        ConcurrentLinkedQueue<Long> latencies = new ConcurrentLinkedQueue<>();
+
+        long start = System.nanoTime();
+        long end = start + TimeUnit.SECONDS.toNanos(seconds);
+        while (System.nanoTime() < end) {
+            if (!inFlight.tryAcquire(100, TimeUnit.MILLISECONDS)) {
+                continue;
+            }
+            long sent = System.nanoTime();
+            client.sendAsync(request, HttpResponse.BodyHandlers.discarding())
+                    .whenComplete((response, error) -> {
+                        latencies.add(System.nanoTime() - sent);
+                        if (error == null && (response.statusCode() == 200 || response.statusCode() == 404)) {
+                            responses.increment();
+                        } else {
+                            failures.increment();
+                        }
+                        inFlight.release();
+                    });
+        }
+        inFlight.tryAcquire(concurrency, 15, TimeUnit.SECONDS);
+        double elapsedSeconds = (System.nanoTime() - start) / 1e9;
+
+        long[] sorted = latencies.stream().mapToLong(Long::longValue).toArray();
+        Arrays.sort(sorted);
+        System.out.printf(Locale.ROOT, "%d requests in %.1f s with %d in flight: %.0f req/s, %d failed%n",
+                sorted.length, elapsedSeconds, concurrency, responses.sum() / elapsedSeconds, failures.sum());
+        System.out.printf(Locale.ROOT, "latency p50 %.1f ms, p99 %.1f ms, p99.9 %.1f ms, max %.1f ms%n",
+                percentile(sorted, 0.5), percentile(sorted, 0.99), percentile(sorted, 0.999), percentile(sorted, 1.0));
+    }
+
+    private static double percentile(long[] sorted, double fraction) {
+        if (sorted.length == 0) {
+            return 0;
+        }
+        int index = (int) Math.min(sorted.length - 1, Math.ceil(fraction * sorted.length) - 1);
+        return sorted[Math.max(0, index)] / 1e6;
+    }
+}
@@ -1,29 +1,43 @@
 package pl.mlodawski.weatherstationdump;
 
 
+import jakarta.servlet.http.HttpServletRequest;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.ExceptionHandler;
 import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RestController;
 import pl.mlodawski.weatherstationdump.model.ErrorModel;
 import pl.mlodawski.weatherstationdump.model.ErrorResponse;
 import pl.mlodawski.weatherstationdump.service.WeatherStationCommandService;
+import pl.mlodawski.weatherstationdump.service.ingest.IngestResult;
+import pl.mlodawski.weatherstationdump.service.ingest.RemoteIngestService;
 
 import java.io.IOException;
+import java.io.InputStream;
 import java.util.List;
+import java.util.zip.GZIPInputStream;
 
 @RestController
 @Slf4j
 public class WeatherStationCommandController {
 
+    private static final String RECEIVER_ID_HEADER = "X-Receiver-Id";
+    private static final String APPLICATION_NDJSON_VALUE = "application/x-ndjson";
+    private static final String RETRY_AFTER_SECONDS = "1";
+
     private final WeatherStationCommandService weatherStationCommandService;
+    private final RemoteIngestService remoteIngestService;
 
     @Autowired
-    public WeatherStationCommandController(WeatherStationCommandService weatherStationCommandService) {
+    public WeatherStationCommandController(WeatherStationCommandService weatherStationCommandService, RemoteIngestService remoteIngestService) {
         this.weatherStationCommandService = weatherStationCommandService;
+        this.remoteIngestService = remoteIngestService;
     }
 
     /**
@@ -38,6 +52,51 @@ public class WeatherStationCommandController {
         return new ResponseEntity<>(HttpStatus.CREATED);
     }
 
+    /**
+     * Ingests a batch of data captured by a remote receiver.
+     * <p>
+     * The body holds either raw rtl_433 output lines ({@code text/plain}) or rtl_433 JSON records, one per line
+     * ({@code application/x-ndjson} or {@code application/json}), and may be gzip compressed
+     * ({@code Content-Encoding: gzip}). It is decoded while it is read, never buffered as a whole.
+     * Other content types are answered with 415 (UNSUPPORTED MEDIA TYPE).
+     * </p>
+     * <p>
+     * Frames are stamped with their capture time: JSON records with their {@code time} field, raw output lines with
+     * the {@code @<time>} marker line preceding each signal. Capture times are unix seconds or a date and time as
+     * printed by rtl_433 {@code -M time}.
+     * </p>
+     *
+     * @param receiverId      The ID of the receiver that captured the data.
+     * @param contentType     The format of the batch.
+     * @param contentEncoding The compression of the batch, if any.
+     * @param request         The request whose body is streamed.
+     * @return The ResponseEntity with HTTP status code 202 (ACCEPTED), or 429 (TOO MANY REQUESTS) with a Retry-After
+     * header if the pipeline is full; in both cases the body reports how much of the batch was processed.
+     * @throws IOException if the batch cannot be read
+     */
+    @PostMapping(value = "/api/weather_station/ingest",
+            consumes = {MediaType.TEXT_PLAIN_VALUE, APPLICATION_NDJSON_VALUE, MediaType.APPLICATION_JSON_VALUE},
+            produces = "application/json")
+    public ResponseEntity<IngestResult> ingestWeatherStationData(@RequestHeader(RECEIVER_ID_HEADER) String receiverId,
+                                                                 @RequestHeader(HttpHeaders.CONTENT_TYPE) String contentType,
+                                                                 @RequestHeader(value = HttpHeaders.CONTENT_ENCODING, required = false) String contentEncoding,
+                                                                 HttpServletRequest request) throws IOException {
+        boolean json = !MediaType.TEXT_PLAIN.isCompatibleWith(MediaType.parseMediaType(contentType));
+        InputStream body = request.getInputStream();
+        if ("gzip".equalsIgnoreCase(contentEncoding)) {
+            body = new GZIPInputStream(body);
+        } else if (contentEncoding != null && !"identity".equalsIgnoreCase(contentEncoding)) {
+            throw new IllegalArgumentException("Unsupported content encoding: " + contentEncoding);
+        }
+        IngestResult result = remoteIngestService.ingest(receiverId, json, body);
+        if (!result.accepted()) {
+            return ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS)
+                    .header(HttpHeaders.RETRY_AFTER, RETRY_AFTER_SECONDS)
+                    .body(result);
+        }
+        return new ResponseEntity<>(result, HttpStatus.ACCEPTED);
+    }
+
     /**
      * Handles the IllegalArgumentException exception.
      *
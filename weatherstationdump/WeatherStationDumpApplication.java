@@ -2,13 +2,31 @@ package pl.mlodawski.weatherstationdump;
 
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.boot.context.properties.ConfigurationPropertiesScan;
+import org.springframework.scheduling.annotation.EnableScheduling;
+
+import java.util.Map;
 
 
 @SpringBootApplication
+@ConfigurationPropertiesScan
+@EnableScheduling
 public class WeatherStationDumpApplication {
 
+    /**
+     * Starts the application.
+     * <p>
+     * HTTP requests are handled on virtual threads by default, through Spring Boot's
+     * {@code spring.threads.virtual.enabled} property. Boot only applies it from version 3.2 on a Java 21 runtime.
+     * This project currently runs on Java 17, where the property is ignored and requests are handled by the regular
+     * Tomcat thread pool; virtual threads take effect once the runtime moves to Java 21. It can be turned off with
+     * {@code spring.threads.virtual.enabled=false}.
+     * </p>
+     */
     public static void main(String[] args) {
-        SpringApplication.run(WeatherStationDumpApplication.class, args);
+        SpringApplication application = new SpringApplication(WeatherStationDumpApplication.class);
+        application.setDefaultProperties(Map.of("spring.threads.virtual.enabled", "true"));
+        application.run(args);
     }
 
 }
@@ -3,19 +3,28 @@ package pl.mlodawski.weatherstationdump;
 
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.format.annotation.DateTimeFormat;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.ExceptionHandler;
 import org.springframework.web.bind.annotation.GetMapping;
-import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
-import pl.mlodawski.weatherstationdump.model.DecodedData;
 import pl.mlodawski.weatherstationdump.model.ErrorModel;
 import pl.mlodawski.weatherstationdump.model.ErrorResponse;
-import pl.mlodawski.weatherstationdump.service.WeatherStationCommandService;
+import pl.mlodawski.weatherstationdump.model.SensorKey;
+import pl.mlodawski.weatherstationdump.model.WeatherStationSnapshot;
 import pl.mlodawski.weatherstationdump.service.WeatherStationViewService;
+import pl.mlodawski.weatherstationdump.service.capture.CaptureFile;
+import pl.mlodawski.weatherstationdump.service.capture.RawCaptureArchive;
+import pl.mlodawski.weatherstationdump.service.receiver.BandStatistics;
+import pl.mlodawski.weatherstationdump.service.receiver.FrequencyHoppingScheduler;
+import pl.mlodawski.weatherstationdump.service.registry.SensorInfo;
+import pl.mlodawski.weatherstationdump.service.registry.SensorRegistry;
+import pl.mlodawski.weatherstationdump.service.timeseries.Sample;
+import pl.mlodawski.weatherstationdump.service.timeseries.TimeSeriesStore;
 
-import java.io.FileNotFoundException;
+import java.time.Instant;
 import java.util.List;
 
 @RestController
@@ -23,32 +32,108 @@ import java.util.List;
 public class WeatherStationViewController {
 
     private final WeatherStationViewService weatherStationViewService;
+    private final RawCaptureArchive rawCaptureArchive;
+    private final SensorRegistry sensorRegistry;
+    private final TimeSeriesStore timeSeriesStore;
+    private final FrequencyHoppingScheduler frequencyHoppingScheduler;
 
     @Autowired
-    public WeatherStationViewController(WeatherStationViewService weatherStationViewService) {
+    public WeatherStationViewController(WeatherStationViewService weatherStationViewService, RawCaptureArchive rawCaptureArchive,
+                                        SensorRegistry sensorRegistry, TimeSeriesStore timeSeriesStore,
+                                        FrequencyHoppingScheduler frequencyHoppingScheduler) {
         this.weatherStationViewService = weatherStationViewService;
+        this.rawCaptureArchive = rawCaptureArchive;
+        this.sensorRegistry = sensorRegistry;
+        this.timeSeriesStore = timeSeriesStore;
+        this.frequencyHoppingScheduler = frequencyHoppingScheduler;
     }
 
     /**
      * Retrieves the weather station data.
+     * <p>
+     * Before any data has been decoded an error response with HTTP status 404 (NOT FOUND) is returned.
+     * The no data state is read from the published snapshot, so it does not throw or log anything.
+     * </p>
      *
-     * @return The response entity containing the decoded data.
+     * @return The response entity containing the decoded data, or the error response if there is no data yet.
      */
     @GetMapping(value = "/api/weather_station", produces = "application/json")
-    public ResponseEntity<DecodedData> getWeatherStationData() {
-       return new ResponseEntity<>(weatherStationViewService.getDecodedData(), HttpStatus.OK);
+    public ResponseEntity<?> getWeatherStationData() {
+        WeatherStationSnapshot snapshot = weatherStationViewService.getSnapshot();
+        if (!snapshot.hasData()) {
+            ErrorResponse errorResponse = new ErrorResponse(List.of(new ErrorModel("NoData", "No data has been decoded yet", null, null)));
+            return new ResponseEntity<>(errorResponse, HttpStatus.NOT_FOUND);
+        }
+        return new ResponseEntity<>(snapshot.reading(), HttpStatus.OK);
     }
 
     /**
-     * Handles FileNotFoundException and returns an appropriate error response.
+     * Lists the sensors currently tracked by the registry together with their latest readings.
      *
-     * @param ex The FileNotFoundException that occurred.
-     * @return The ResponseEntity with the error response.
+     * @return The response entity containing the tracked sensors.
      */
-    @ExceptionHandler(FileNotFoundException.class)
-    public ResponseEntity<ErrorResponse> handleNotFoundException(FileNotFoundException ex) {
-        log.error("Exception in {}::{} - {}", ex.getCause(), ex.getStackTrace(), ex.getMessage());
-        ErrorResponse errorResponse = new ErrorResponse(List.of(new ErrorModel("FileNotFoundException", "There was an FileNotFoundException", null, null)));
+    @GetMapping(value = "/api/weather_station/sensors", produces = "application/json")
+    public ResponseEntity<List<SensorInfo>> getSensors() {
+        return new ResponseEntity<>(sensorRegistry.getSensors(), HttpStatus.OK);
+    }
+
+    /**
+     * Retrieves the history of a sensor in the given time range, decoded from the in-memory time series.
+     *
+     * @param id      The device ID of the sensor.
+     * @param channel The channel of the sensor.
+     * @param from    The start of the range.
+     * @param to      The end of the range.
+     * @return The response entity containing the samples in the range, oldest first.
+     */
+    @GetMapping(value = "/api/weather_station/history", produces = "application/json")
+    public ResponseEntity<List<Sample>> getHistory(@RequestParam int id,
+                                                   @RequestParam int channel,
+                                                   @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) Instant from,
+                                                   @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) Instant to) {
+        if (to.isBefore(from)) {
+            throw new IllegalArgumentException("The end of the range is before its start");
+        }
+        List<Sample> samples = timeSeriesStore.findRange(new SensorKey(id, channel), from.toEpochMilli(), to.toEpochMilli());
+        return new ResponseEntity<>(samples, HttpStatus.OK);
+    }
+
+    /**
+     * Retrieves the capture statistics of the receiver bands, for tuning the hopping schedule.
+     *
+     * @return The response entity containing the statistics of every configured band.
+     */
+    @GetMapping(value = "/api/weather_station/bands", produces = "application/json")
+    public ResponseEntity<List<BandStatistics>> getBandStatistics() {
+        return new ResponseEntity<>(frequencyHoppingScheduler.getBandStatistics(), HttpStatus.OK);
+    }
+
+    /**
+     * Lists the raw capture archive files holding rtl_433 output from the given time window.
+     *
+     * @param from The start of the incident window.
+     * @param to   The end of the incident window.
+     * @return The response entity containing the matching archive files, oldest first.
+     */
+    @GetMapping(value = "/api/weather_station/captures", produces = "application/json")
+    public ResponseEntity<List<CaptureFile>> getCaptureFiles(@RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) Instant from,
+                                                             @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) Instant to) {
+        if (to.isBefore(from)) {
+            throw new IllegalArgumentException("The end of the window is before its start");
+        }
+        return new ResponseEntity<>(rawCaptureArchive.locate(from, to), HttpStatus.OK);
+    }
+
+    /**
+     * Handles the IllegalArgumentException exception.
+     *
+     * @param ex The IllegalArgumentException that was caught
+     * @return The ResponseEntity containing the ErrorResponse with information about the error
+     */
+    @ExceptionHandler(IllegalArgumentException.class)
+    public ResponseEntity<ErrorResponse> handleIllegalArgumentException(IllegalArgumentException ex) {
+        log.error("IllegalArgumentException in {}::{} - {}", ex.getCause(), ex.getStackTrace(), ex.getMessage());
+        ErrorResponse errorResponse = new ErrorResponse(List.of(new ErrorModel("IllegalArgumentException", "There was an IllegalArgumentException", null, null)));
         return new ResponseEntity<>(errorResponse, HttpStatus.BAD_REQUEST);
     }
 }
@@ -54,4 +54,16 @@ public class DecodedData {
      * Represents the humidity level.
      */
     private int humidity;
+    /**
+     * The time the reading was decoded, in milliseconds since the epoch.
+     */
+    private long timestamp;
+    /**
+     * The frequency the receiver was tuned to when the frame was captured, e.g. {@code 433.902M}.
+     */
+    private String frequency;
+    /**
+     * The ID of the receiver that captured the frame, {@code local} for the receiver attached to this service.
+     */
+    private String receiverId;
 }
@@ -0,0 +1,59 @@
+package pl.mlodawski.weatherstationdump.model;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+
+/**
+ * An immutable copy of a decoded reading, as served by the API.
+ * It is serialized with the same property names as {@link DecodedData}.
+ *
+ * @param model        the model of the decoded device
+ * @param id           the ID of the decoded device
+ * @param channel      the channel number for the device
+ * @param batteryOk    the battery status
+ * @param temperatureC the temperature in Celsius
+ * @param humidity     the humidity level
+ * @param timestamp    the time the reading was captured, in milliseconds since the epoch
+ * @param frequency    the frequency the receiver was tuned to when the frame was captured
+ * @param receiverId   the ID of the receiver that captured the frame
+ */
+public record DecodedReading(String model,
+                             int id,
+                             int channel,
+                             @JsonProperty("batteryStatus") boolean batteryOk,
+                             @JsonProperty("temperatureCelsius") double temperatureC,
+                             int humidity,
+                             long timestamp,
+                             String frequency,
+                             String receiverId) {
+
+    /**
+     * Copies a decoded reading, so later changes to it are not visible through the copy.
+     *
+     * @param decodedData the decoded reading
+     * @return the immutable copy
+     */
+    public static DecodedReading of(DecodedData decodedData) {
+        return new DecodedReading(decodedData.getModel(), decodedData.getId(), decodedData.getChannel(), decodedData.isBatteryOk(),
+                decodedData.getTemperatureC(), decodedData.getHumidity(), decodedData.getTimestamp(),
+                decodedData.getFrequency(), decodedData.getReceiverId());
+    }
+
+    /**
+     * Creates a mutable copy of this reading.
+     *
+     * @return a new decoded data object holding the values of this reading
+     */
+    public DecodedData toDecodedData() {
+        DecodedData decodedData = new DecodedData();
+        decodedData.setModel(model);
+        decodedData.setId(id);
+        decodedData.setChannel(channel);
+        decodedData.setBatteryOk(batteryOk);
+        decodedData.setTemperatureC(temperatureC);
+        decodedData.setHumidity(humidity);
+        decodedData.setTimestamp(timestamp);
+        decodedData.setFrequency(frequency);
+        decodedData.setReceiverId(receiverId);
+        return decodedData;
+    }
+}
@@ -0,0 +1,20 @@
+package pl.mlodawski.weatherstationdump.model;
+
+/**
+ * Identifies a single physical sensor by its device ID and channel.
+ *
+ * @param id      the device ID transmitted by the sensor
+ * @param channel the channel the sensor is set to
+ */
+public record SensorKey(int id, int channel) {
+
+    /**
+     * Creates the key of the sensor that produced the given reading.
+     *
+     * @param decodedData the decoded reading
+     * @return the key of the sensor that transmitted the reading
+     */
+    public static SensorKey of(DecodedData decodedData) {
+        return new SensorKey(decodedData.getId(), decodedData.getChannel());
+    }
+}
@@ -143,4 +143,17 @@ public class SignalData {
       * Stores frequency offset information.
       */
      FrequencyOffsetData frequencyOffset;
+     /**
+      * The frequency the receiver was tuned to when the signal was captured, e.g. {@code 433.902M}.
+      */
+     String frequency;
+     /**
+      * The ID of the receiver that captured the signal.
+      */
+     String receiverId;
+     /**
+      * The time the signal being collected was captured, in milliseconds since the epoch, if the receiver reported it.
+      * When it is 0 the time the signal is decoded is used instead. It is reset once the signal is complete.
+      */
+     long captureTime;
 }
@@ -0,0 +1,34 @@
+package pl.mlodawski.weatherstationdump.model;
+
+/**
+ * An immutable view of the weather station state, replaced as a whole whenever a new reading is decoded.
+ *
+ * @param reading the latest decoded reading, or null before the first one
+ * @param version the number of readings published so far
+ */
+public record WeatherStationSnapshot(DecodedReading reading, long version) {
+
+    /**
+     * The snapshot visible before any data has been decoded.
+     */
+    public static final WeatherStationSnapshot EMPTY = new WeatherStationSnapshot(null, 0);
+
+    /**
+     * Creates the snapshot following this one.
+     *
+     * @param decodedData the newly decoded reading, copied into the snapshot
+     * @return a new snapshot holding the reading
+     */
+    public WeatherStationSnapshot next(DecodedData decodedData) {
+        return new WeatherStationSnapshot(DecodedReading.of(decodedData), version + 1);
+    }
+
+    /**
+     * Checks whether any data has been decoded yet.
+     *
+     * @return true if the snapshot holds a reading
+     */
+    public boolean hasData() {
+        return reading != null;
+    }
+}
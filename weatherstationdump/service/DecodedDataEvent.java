@@ -9,8 +9,33 @@ import pl.mlodawski.weatherstationdump.model.DecodedData;
  * It extends the ApplicationEvent class.
  */
 public class DecodedDataEvent extends ApplicationEvent {
+
+    private final boolean late;
+
     public DecodedDataEvent(Object source, DecodedData signalData) {
+        this(source, signalData, false);
+    }
+
+    /**
+     * Creates the event of a decoded reading.
+     *
+     * @param source     the object publishing the event
+     * @param signalData the decoded reading
+     * @param late       true if a newer reading of the same sensor was published before this one
+     */
+    public DecodedDataEvent(Object source, DecodedData signalData, boolean late) {
         super(source);
         super.source = signalData;
+        this.late = late;
+    }
+
+    /**
+     * Checks whether the reading arrived after a newer reading of the same sensor, e.g. from a remote receiver
+     * uploading a backlog. Such a reading belongs to the history, but must not replace the latest state.
+     *
+     * @return true if the reading is older than the newest published reading of its sensor
+     */
+    public boolean isLate() {
+        return late;
     }
 }
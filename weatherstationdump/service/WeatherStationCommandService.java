@@ -3,16 +3,24 @@ package pl.mlodawski.weatherstationdump.service;
 import lombok.SneakyThrows;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
 import pl.mlodawski.weatherstationdump.model.*;
+import pl.mlodawski.weatherstationdump.service.capture.RawCaptureArchive;
+import pl.mlodawski.weatherstationdump.service.ingest.DecodedDataPipeline;
+import pl.mlodawski.weatherstationdump.service.logging.HotPathLogger;
+import pl.mlodawski.weatherstationdump.service.receiver.FrequencyHoppingScheduler;
+import pl.mlodawski.weatherstationdump.service.receiver.ReceiverProcessFactory;
 
 import java.io.BufferedReader;
-import java.io.File;
 import java.io.IOException;
 import java.io.InputStreamReader;
+import java.time.Duration;
 import java.util.Arrays;
 import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
@@ -22,12 +30,35 @@ public class WeatherStationCommandService {
 
     private static final List<String> KILL_TASK_COMMAND = Arrays.asList("taskkill", "/F", "/IM", "rtl_433-rtlsdr.exe");
     private static final long SLEEP_TIME_IN_MILLISECONDS = 1000;
+    private static final String DECODE_ERROR_LOG_KEY = "decode-error";
+    private static final int ROWS_PER_SIGNAL = 6;
+    private static final String DEMODULATION_PREFIX = "Attempting demodulation";
 
-    private final ApplicationEventPublisher eventPublisher;
+    /**
+     * The receiver ID of frames captured by the receiver attached to this service.
+     */
+    public static final String LOCAL_RECEIVER_ID = "local";
+
+    private final DecodedDataPipeline decodedDataPipeline;
+    private final RawCaptureArchive rawCaptureArchive;
+    private final ReceiverProcessFactory receiverProcessFactory;
+    private final FrequencyHoppingScheduler frequencyHoppingScheduler;
+    private final HotPathLogger hotPathLogger;
+    private final ScheduledExecutorService dwellTimer = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "receiver-dwell-timer");
+        thread.setDaemon(true);
+        return thread;
+    });
 
     @Autowired
-    public WeatherStationCommandService(ApplicationEventPublisher eventPublisher) {
-        this.eventPublisher = eventPublisher;
+    public WeatherStationCommandService(DecodedDataPipeline decodedDataPipeline, RawCaptureArchive rawCaptureArchive,
+                                        ReceiverProcessFactory receiverProcessFactory, FrequencyHoppingScheduler frequencyHoppingScheduler,
+                                        HotPathLogger hotPathLogger) {
+        this.decodedDataPipeline = decodedDataPipeline;
+        this.rawCaptureArchive = rawCaptureArchive;
+        this.receiverProcessFactory = receiverProcessFactory;
+        this.frequencyHoppingScheduler = frequencyHoppingScheduler;
+        this.hotPathLogger = hotPathLogger;
     }
 
     /**
@@ -83,18 +114,55 @@ public class WeatherStationCommandService {
 
 
     /**
-     * Initializes the process by starting the rtl_433-rtlsdr executable and reading its output.
+     * Initializes the process by starting the receiver and reading its output.
+     * <p>
+     * With a single configured band the receiver runs until it terminates. With more bands the
+     * {@link FrequencyHoppingScheduler} decides which band to tune to next and for how long; the receiver is
+     * restarted on every band and stopped when its dwell time is over. Hopping ends if the receiver terminates
+     * on its own before its dwell is over.
+     * </p>
      *
      * @throws IOException if an I/O error occurs when starting the process
      */
     private void initializeProcess() throws IOException {
-        String currentPath = System.getProperty("user.dir");
-        String executablePath = currentPath + File.separator + "RTL" + File.separator + "rtl_433-rtlsdr.exe";
-        ProcessBuilder pb = new ProcessBuilder(executablePath, "-f", "433.902M", "-A", "-R", "0");
-        pb.redirectErrorStream(true);
-        Process process = pb.start();
+        if (!frequencyHoppingScheduler.isHopping()) {
+            FrequencyHoppingScheduler.Dwell dwell = frequencyHoppingScheduler.nextDwell();
+            long start = System.currentTimeMillis();
+            ReceiverRun run = runReceiver(dwell.frequency(), null);
+            frequencyHoppingScheduler.recordDwell(dwell.frequency(), run.packets(), run.frames(), Duration.ofMillis(System.currentTimeMillis() - start));
+            return;
+        }
+        while (!Thread.currentThread().isInterrupted()) {
+            FrequencyHoppingScheduler.Dwell dwell = frequencyHoppingScheduler.nextDwell();
+            log.info("Tuning receiver to {} for {} s", dwell.frequency(), dwell.duration().toSeconds());
+            long start = System.currentTimeMillis();
+            ReceiverRun run = runReceiver(dwell.frequency(), dwell.duration());
+            frequencyHoppingScheduler.recordDwell(dwell.frequency(), run.packets(), run.frames(), Duration.ofMillis(System.currentTimeMillis() - start));
+            if (!run.dwellExpired()) {
+                log.error("Receiver on {} terminated before its dwell was over, stopping frequency hopping", dwell.frequency());
+                return;
+            }
+        }
+    }
+
+    /**
+     * Starts the receiver on one frequency and decodes its output until it terminates or the dwell is over.
+     *
+     * @param frequency the frequency to tune to
+     * @param dwell     how long to stay on the frequency, or null to stay until the receiver terminates
+     * @return the number of demodulated packets and decoded frames and whether the receiver was stopped because the dwell was over
+     * @throws IOException if an I/O error occurs when starting the process
+     */
+    private ReceiverRun runReceiver(String frequency, Duration dwell) throws IOException {
+        Process process = receiverProcessFactory.start(frequency);
+        ScheduledFuture<?> dwellEnd = dwell == null ? null
+                : dwellTimer.schedule(process::destroy, dwell.toMillis(), TimeUnit.MILLISECONDS);
+        long packets = 0;
+        long frames = 0;
         BufferedReader reader = new BufferedReader(new InputStreamReader(process.getInputStream()));
         SignalData signalData = new SignalData();
+        signalData.setFrequency(frequency);
+        signalData.setReceiverId(LOCAL_RECEIVER_ID);
         String line;
         while (true) {
             line = reader.readLine();
@@ -102,12 +170,24 @@ public class WeatherStationCommandService {
                 log.info("Process has terminated.");
                 break;
             }
-            processLine(line, signalData);
-            if(signalData.getRows().size() >= 6){
-                decodeData(signalData);
-                signalData.getRows().clear();
+            rawCaptureArchive.offer(line);
+            if (line.startsWith(DEMODULATION_PREFIX)) {
+                packets++;
+            }
+            DecodedData decodedData = parseLine(line, signalData);
+            if (decodedData != null) {
+                frames++;
+                try {
+                    decodedDataPipeline.submit(decodedData);
+                } catch (InterruptedException e) {
+                    log.error("Reader was interrupted.", e);
+                    Thread.currentThread().interrupt();
+                    process.destroy();
+                    break;
+                }
             }
         }
+        boolean dwellExpired = dwellEnd != null && !dwellEnd.cancel(false);
         int exitCode;
         try {
             exitCode = process.waitFor();
@@ -116,9 +196,32 @@ public class WeatherStationCommandService {
             log.error("Process was interrupted.", e);
             Thread.currentThread().interrupt();
         }
+        return new ReceiverRun(packets, frames, dwellExpired);
+    }
+
+    private record ReceiverRun(long packets, long frames, boolean dwellExpired) {
     }
 
 
+    /**
+     * Feeds one raw rtl_433 output line through the parser and decodes the signal once all its rows have arrived.
+     * The same parsing is used for the local receiver and for lines sent by remote receivers.
+     *
+     * @param line       The raw output line.
+     * @param signalData The signal data collecting the lines of the current signal.
+     * @return The decoded data if the line completed a signal that could be decoded, otherwise null.
+     */
+    public DecodedData parseLine(String line, SignalData signalData) {
+        processLine(line, signalData);
+        if (signalData.getRows().size() < ROWS_PER_SIGNAL) {
+            return null;
+        }
+        DecodedData decodedData = decodeData(signalData);
+        signalData.getRows().clear();
+        signalData.setCaptureTime(0);
+        return decodedData.getModel() != null ? decodedData : null;
+    }
+
     /**
      * Processes a line of data based on its content and updates the signal data accordingly.
      *
@@ -126,7 +229,7 @@ public class WeatherStationCommandService {
      * @param signalData The signal data object to be updated.
      */
     private void processLine(String line, SignalData signalData) {
-        if (line.startsWith("Attempting demodulation")) {
+        if (line.startsWith(DEMODULATION_PREFIX)) {
             processDemodulationData(line, signalData);
         } else if (line.startsWith("bitbuffer:: Number of rows")) {
             processBufferData(line, signalData);
@@ -249,6 +352,7 @@ public class WeatherStationCommandService {
 
     /**
      * Decodes the provided SignalData and returns the decoded information in the form of DecodedData object.
+     * Publishing the result is up to the caller.
      *
      * @param signalData The SignalData object to be decoded.
      * @return The DecodedData object containing the decoded information.
@@ -279,13 +383,15 @@ public class WeatherStationCommandService {
                         decodedData.setBatteryOk(batteryLow == 0);
                         decodedData.setTemperatureC(tempC);
                         decodedData.setHumidity(humidity);
-                        log.info("Decoded data: {}", decodedData);
-                        eventPublisher.publishEvent(new DecodedDataEvent(this, decodedData));
+                        decodedData.setTimestamp(signalData.getCaptureTime() > 0 ? signalData.getCaptureTime() : System.currentTimeMillis());
+                        decodedData.setFrequency(signalData.getFrequency());
+                        decodedData.setReceiverId(signalData.getReceiverId());
+                        hotPathLogger.info(log, SensorKey.of(decodedData), "Decoded data: {}", decodedData);
                         return decodedData;
 
                     }
                 } catch (ArrayIndexOutOfBoundsException | NullPointerException e) {
-                    log.error("Error while decoding data", e);
+                    hotPathLogger.error(log, DECODE_ERROR_LOG_KEY, "Error while decoding data", e);
                 }
             }
         }
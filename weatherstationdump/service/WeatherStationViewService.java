@@ -1,22 +1,32 @@
 package pl.mlodawski.weatherstationdump.service;
 
-import lombok.SneakyThrows;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.context.event.EventListener;
 import org.springframework.stereotype.Service;
 import pl.mlodawski.weatherstationdump.model.DecodedData;
+import pl.mlodawski.weatherstationdump.model.DecodedReading;
+import pl.mlodawski.weatherstationdump.model.WeatherStationSnapshot;
+import pl.mlodawski.weatherstationdump.service.snapshot.SnapshotIO;
+import pl.mlodawski.weatherstationdump.service.snapshot.SnapshotParticipant;
 
-import java.io.FileNotFoundException;
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.util.concurrent.atomic.AtomicReference;
 
 @Service
 @Slf4j
-public class WeatherStationViewService {
+public class WeatherStationViewService implements SnapshotParticipant {
 
     ApplicationEventPublisher eventPublisher;
 
-    DecodedData decodedData;
+    /**
+     * The latest published state. Readers only ever see a complete snapshot, and the atomic reference
+     * guarantees that the reading it holds is fully visible to every request thread.
+     */
+    private final AtomicReference<WeatherStationSnapshot> snapshot = new AtomicReference<>(WeatherStationSnapshot.EMPTY);
 
     @Autowired
     public WeatherStationViewService(ApplicationEventPublisher eventPublisher) {
@@ -27,27 +37,53 @@ public class WeatherStationViewService {
     /**
      * This method is an event listener for DecodedDataEvent. It is called when a DecodedDataEvent
      * occurs. The method checks if the source of the event is an instance of DecodedData, and if
-     * so, it assigns the DecodedData object to the decodedData field of the WeatherStationViewService class.
+     * so, it publishes a new snapshot holding the DecodedData object.
      *
      * @param event The DecodedDataEvent object representing the occurrence of the event.
      */
     @EventListener
     private void getDataEvent(DecodedDataEvent event) {
-        if(event.getSource() instanceof DecodedData myDecodedData){
-            this.decodedData = myDecodedData;
+        if(!event.isLate() && event.getSource() instanceof DecodedData myDecodedData){
+            publish(myDecodedData);
         }
     }
 
     /**
-     * Retrieves the decoded data.
+     * Publishes a new snapshot holding a copy of the given reading as the latest one.
+     * A reading older than the one already published is ignored.
      *
-     * @return The decoded data.
+     * @param decodedData The decoded reading to publish.
      */
-    @SneakyThrows
-    public DecodedData getDecodedData() {
-        if(decodedData == null){
-            throw new FileNotFoundException("No data");
-        }
-        return decodedData;
+    public void publish(DecodedData decodedData) {
+        snapshot.updateAndGet(current -> current.hasData() && current.reading().timestamp() > decodedData.getTimestamp()
+                ? current : current.next(decodedData));
+    }
+
+    /**
+     * Retrieves the latest published snapshot. Never blocks and never returns null.
+     *
+     * @return The latest snapshot, {@link WeatherStationSnapshot#EMPTY} before any data has been decoded.
+     */
+    public WeatherStationSnapshot getSnapshot() {
+        return snapshot.get();
+    }
+
+    @Override
+    public String snapshotSection() {
+        return "view";
+    }
+
+    @Override
+    public void writeSnapshot(DataOutput out) throws IOException {
+        WeatherStationSnapshot current = snapshot.get();
+        out.writeLong(current.version());
+        SnapshotIO.writeDecodedData(out, current.hasData() ? current.reading().toDecodedData() : null);
+    }
+
+    @Override
+    public void restoreSnapshot(DataInput in) throws IOException {
+        long version = in.readLong();
+        DecodedData decodedData = SnapshotIO.readDecodedData(in);
+        snapshot.set(decodedData == null ? WeatherStationSnapshot.EMPTY : new WeatherStationSnapshot(DecodedReading.of(decodedData), version));
     }
 }
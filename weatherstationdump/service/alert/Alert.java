@@ -0,0 +1,21 @@
+package pl.mlodawski.weatherstationdump.service.alert;
+
+import pl.mlodawski.weatherstationdump.model.SensorKey;
+
+/**
+ * A change of an alert rule's status for one sensor.
+ *
+ * @param rule      the name of the rule
+ * @param sensor    the sensor the alert is about
+ * @param status    whether the alert started or was resolved
+ * @param value     the metric value of the reading that changed the status
+ * @param threshold the threshold configured for the rule
+ * @param timestamp the time of the reading in milliseconds since the epoch
+ */
+public record Alert(String rule, SensorKey sensor, Status status, double value, double threshold, long timestamp) {
+
+    public enum Status {
+        FIRING,
+        RESOLVED
+    }
+}
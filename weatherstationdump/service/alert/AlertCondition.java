@@ -0,0 +1,56 @@
+package pl.mlodawski.weatherstationdump.service.alert;
+
+import java.util.function.DoublePredicate;
+
+/**
+ * How an alert rule compares a metric with its threshold.
+ * <p>
+ * The rate conditions compare the change of the metric per minute between two consecutive readings
+ * of the same sensor instead of the value itself.
+ * </p>
+ */
+public enum AlertCondition {
+    ABOVE(false),
+    BELOW(false),
+    RISING_FASTER_THAN(true),
+    FALLING_FASTER_THAN(true);
+
+    private final boolean rateOfChange;
+
+    AlertCondition(boolean rateOfChange) {
+        this.rateOfChange = rateOfChange;
+    }
+
+    public boolean isRateOfChange() {
+        return rateOfChange;
+    }
+
+    /**
+     * Builds the predicate that starts an alert.
+     *
+     * @param threshold the configured threshold
+     * @return the predicate matching values past the threshold
+     */
+    DoublePredicate trigger(double threshold) {
+        return switch (this) {
+            case ABOVE, RISING_FASTER_THAN -> value -> value > threshold;
+            case BELOW -> value -> value < threshold;
+            case FALLING_FASTER_THAN -> value -> value < -threshold;
+        };
+    }
+
+    /**
+     * Builds the predicate that resolves a firing alert.
+     *
+     * @param threshold  the configured threshold
+     * @param hysteresis how far back past the threshold the value has to move
+     * @return the predicate matching values that are back to normal
+     */
+    DoublePredicate clear(double threshold, double hysteresis) {
+        return switch (this) {
+            case ABOVE, RISING_FASTER_THAN -> value -> value <= threshold - hysteresis;
+            case BELOW -> value -> value >= threshold + hysteresis;
+            case FALLING_FASTER_THAN -> value -> value >= -threshold + hysteresis;
+        };
+    }
+}
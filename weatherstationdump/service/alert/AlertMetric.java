@@ -0,0 +1,33 @@
+package pl.mlodawski.weatherstationdump.service.alert;
+
+import pl.mlodawski.weatherstationdump.model.DecodedData;
+
+import java.util.function.ToDoubleFunction;
+
+/**
+ * The values of a decoded reading that alert rules can be declared on.
+ */
+public enum AlertMetric {
+    TEMPERATURE(DecodedData::getTemperatureC),
+    HUMIDITY(DecodedData::getHumidity),
+    /**
+     * 1 when the battery is ok, 0 when it is low.
+     */
+    BATTERY(decodedData -> decodedData.isBatteryOk() ? 1.0 : 0.0);
+
+    private final ToDoubleFunction<DecodedData> extractor;
+
+    AlertMetric(ToDoubleFunction<DecodedData> extractor) {
+        this.extractor = extractor;
+    }
+
+    /**
+     * Reads the value of this metric from the given reading.
+     *
+     * @param decodedData the decoded reading
+     * @return the value of the metric
+     */
+    public double valueOf(DecodedData decodedData) {
+        return extractor.applyAsDouble(decodedData);
+    }
+}
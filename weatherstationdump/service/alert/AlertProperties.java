@@ -0,0 +1,85 @@
+package pl.mlodawski.weatherstationdump.service.alert;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Configuration of the alert rule engine, bound from the {@code weather-station.alerts} prefix.
+ * <p>
+ * When no rules are configured, the freezing temperature, high humidity and low battery rules are used.
+ * </p>
+ */
+@Data
+@ConfigurationProperties(prefix = "weather-station.alerts")
+public class AlertProperties {
+
+    /**
+     * Whether decoded readings are evaluated against the rules at all.
+     */
+    private boolean enabled = true;
+    /**
+     * The minimum time between two notifications with the same rule, sensor and status.
+     */
+    private Duration dedupWindow = Duration.ofMinutes(15);
+    /**
+     * The URL alerts are posted to as JSON. When empty, alerts are only logged.
+     */
+    private String webhookUrl;
+    /**
+     * The rules evaluated for every decoded reading.
+     */
+    private List<RuleDefinition> rules = new ArrayList<>(List.of(
+            RuleDefinition.of("freezing", AlertMetric.TEMPERATURE, AlertCondition.BELOW, 0.0, 0.5),
+            RuleDefinition.of("high-humidity", AlertMetric.HUMIDITY, AlertCondition.ABOVE, 80.0, 3.0),
+            RuleDefinition.of("low-battery", AlertMetric.BATTERY, AlertCondition.BELOW, 0.5, 0.0)));
+
+    @Data
+    public static class RuleDefinition {
+        /**
+         * The name the rule is reported under.
+         */
+        private String name;
+        /**
+         * The reading value the rule looks at.
+         */
+        private AlertMetric metric;
+        /**
+         * How the value, or its rate of change per minute, is compared with the threshold.
+         */
+        private AlertCondition condition;
+        /**
+         * The value the metric is compared with.
+         */
+        private double threshold;
+        /**
+         * How far back past the threshold the value has to move before a firing alert is resolved.
+         */
+        private double hysteresis;
+        /**
+         * How long the condition has to hold before the alert fires.
+         */
+        private Duration forDuration = Duration.ZERO;
+        /**
+         * Restricts the rule to a single device ID. Applies to all sensors when empty.
+         */
+        private Integer sensorId;
+        /**
+         * Restricts the rule to a single channel. Applies to all channels when empty.
+         */
+        private Integer channel;
+
+        static RuleDefinition of(String name, AlertMetric metric, AlertCondition condition, double threshold, double hysteresis) {
+            RuleDefinition definition = new RuleDefinition();
+            definition.setName(name);
+            definition.setMetric(metric);
+            definition.setCondition(condition);
+            definition.setThreshold(threshold);
+            definition.setHysteresis(hysteresis);
+            return definition;
+        }
+    }
+}
@@ -0,0 +1,140 @@
+package pl.mlodawski.weatherstationdump.service.alert;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import pl.mlodawski.weatherstationdump.model.DecodedData;
+import pl.mlodawski.weatherstationdump.model.SensorKey;
+import pl.mlodawski.weatherstationdump.service.DecodedDataEvent;
+import pl.mlodawski.weatherstationdump.service.registry.SensorEvictedEvent;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Evaluates the configured alert rules against every decoded reading.
+ * <p>
+ * The rules are compiled once at startup. For every sensor the engine keeps one {@link RuleState} per rule,
+ * so each reading is evaluated in constant time without looking at earlier readings again.
+ * Alerts are raised only when a rule changes between firing and resolved. A transition within the
+ * deduplication window of the previous notification is held back and sent when the window is over, if it
+ * still changes the status the sinks know, so a flapping rule never leaves the sinks with a stale status.
+ * </p>
+ */
+@Service
+@Slf4j
+public class AlertRuleEngine {
+
+    private final boolean enabled;
+    private final long dedupWindowMillis;
+    private final List<CompiledRule> rules;
+    private final List<AlertSink> sinks;
+    private final Map<SensorKey, RuleState[]> states = new ConcurrentHashMap<>();
+
+    @Autowired
+    public AlertRuleEngine(AlertProperties alertProperties, List<AlertSink> sinks) {
+        this.enabled = alertProperties.isEnabled();
+        this.dedupWindowMillis = alertProperties.getDedupWindow().toMillis();
+        this.sinks = sinks;
+        List<CompiledRule> compiledRules = new ArrayList<>();
+        for (AlertProperties.RuleDefinition definition : alertProperties.getRules()) {
+            compiledRules.add(CompiledRule.compile(compiledRules.size(), definition));
+        }
+        this.rules = List.copyOf(compiledRules);
+        log.info("Compiled {} alert rules", rules.size());
+    }
+
+    /**
+     * Evaluates all rules that apply to the sensor of a newly decoded reading.
+     *
+     * @param event The DecodedDataEvent object representing the occurrence of the event.
+     */
+    @EventListener
+    public void onDecodedData(DecodedDataEvent event) {
+        if (enabled && !event.isLate() && event.getSource() instanceof DecodedData decodedData) {
+            evaluate(decodedData);
+        }
+    }
+
+    /**
+     * Evaluates all rules that apply to the sensor of the given reading and sends the resulting alerts.
+     *
+     * @param decodedData the decoded reading
+     */
+    public void evaluate(DecodedData decodedData) {
+        SensorKey sensorKey = SensorKey.of(decodedData);
+        RuleState[] sensorStates = states.computeIfAbsent(sensorKey, key -> newStates());
+        long now = System.currentTimeMillis();
+        synchronized (sensorStates) {
+            for (CompiledRule rule : rules) {
+                if (!rule.appliesTo().test(sensorKey)) {
+                    continue;
+                }
+                double value = rule.metric().valueOf(decodedData);
+                RuleState state = sensorStates[rule.index()];
+                dispatch(state.flush(now, dedupWindowMillis));
+                Alert.Status status = rule.evaluate(state, value, decodedData.getTimestamp());
+                if (status == null) {
+                    continue;
+                }
+                Alert alert = state.notify(new Alert(rule.name(), sensorKey, status, value, rule.threshold(), decodedData.getTimestamp()), now, dedupWindowMillis);
+                if (alert != null) {
+                    dispatch(alert);
+                } else {
+                    log.debug("Held back alert {} for sensor {} within the deduplication window", rule.name(), sensorKey);
+                }
+            }
+        }
+    }
+
+    /**
+     * Sends the transitions held back for sensors that have gone silent since, once their window is over.
+     */
+    @Scheduled(fixedDelay = 30, timeUnit = TimeUnit.SECONDS)
+    public void flushPending() {
+        long now = System.currentTimeMillis();
+        for (RuleState[] sensorStates : states.values()) {
+            synchronized (sensorStates) {
+                for (RuleState state : sensorStates) {
+                    dispatch(state.flush(now, dedupWindowMillis));
+                }
+            }
+        }
+    }
+
+    /**
+     * Drops the rule state kept for a sensor the registry no longer tracks.
+     *
+     * @param event The SensorEvictedEvent naming the evicted sensor.
+     */
+    @EventListener
+    public void onSensorEvicted(SensorEvictedEvent event) {
+        states.remove(event.getSensorKey());
+    }
+
+    private RuleState[] newStates() {
+        RuleState[] sensorStates = new RuleState[rules.size()];
+        for (int i = 0; i < sensorStates.length; i++) {
+            sensorStates[i] = new RuleState();
+        }
+        return sensorStates;
+    }
+
+    private void dispatch(Alert alert) {
+        if (alert == null) {
+            return;
+        }
+        for (AlertSink sink : sinks) {
+            try {
+                sink.send(alert);
+            } catch (RuntimeException e) {
+                log.error("Error while sending alert {} to {}", alert.rule(), sink.getClass().getSimpleName(), e);
+            }
+        }
+    }
+}
@@ -0,0 +1,15 @@
+package pl.mlodawski.weatherstationdump.service.alert;
+
+/**
+ * A destination alerts are delivered to. Every sink bean receives every alert that passes deduplication.
+ */
+public interface AlertSink {
+
+    /**
+     * Delivers an alert. Implementations must not block the caller for long, because alerts are sent
+     * from the thread that decodes the readings.
+     *
+     * @param alert the alert to deliver
+     */
+    void send(Alert alert);
+}
@@ -0,0 +1,103 @@
+package pl.mlodawski.weatherstationdump.service.alert;
+
+import pl.mlodawski.weatherstationdump.model.SensorKey;
+
+import java.util.function.DoublePredicate;
+import java.util.function.Predicate;
+
+/**
+ * An alert rule compiled once from its {@link AlertProperties.RuleDefinition} into predicates,
+ * so evaluating a reading does not look at the configuration again.
+ *
+ * @param index          the position of the rule, used to address its per sensor state
+ * @param name           the name the rule is reported under
+ * @param metric         the metric the rule looks at
+ * @param rateOfChange   whether the predicates apply to the change per minute instead of the value
+ * @param threshold      the configured threshold, reported with the alert
+ * @param trigger        matches values that start the alert
+ * @param clear          matches values that resolve the alert
+ * @param forMillis      how long the trigger has to hold before the alert fires
+ * @param appliesTo      matches the sensors the rule is evaluated for
+ */
+record CompiledRule(int index,
+                    String name,
+                    AlertMetric metric,
+                    boolean rateOfChange,
+                    double threshold,
+                    DoublePredicate trigger,
+                    DoublePredicate clear,
+                    long forMillis,
+                    Predicate<SensorKey> appliesTo) {
+
+    private static final double MILLISECONDS_PER_MINUTE = 60_000.0;
+
+    /**
+     * Compiles a configured rule definition.
+     *
+     * @param index      the position of the rule
+     * @param definition the configured rule
+     * @return the compiled rule
+     * @throws IllegalArgumentException if the definition misses its metric or condition
+     */
+    static CompiledRule compile(int index, AlertProperties.RuleDefinition definition) {
+        if (definition.getMetric() == null || definition.getCondition() == null) {
+            throw new IllegalArgumentException("Alert rule '" + definition.getName() + "' needs a metric and a condition");
+        }
+        AlertCondition condition = definition.getCondition();
+        Integer sensorId = definition.getSensorId();
+        Integer channel = definition.getChannel();
+        Predicate<SensorKey> appliesTo = sensorKey -> (sensorId == null || sensorKey.id() == sensorId)
+                && (channel == null || sensorKey.channel() == channel);
+        String name = definition.getName() != null ? definition.getName() : "rule-" + index;
+        return new CompiledRule(index, name, definition.getMetric(), condition.isRateOfChange(), definition.getThreshold(),
+                condition.trigger(definition.getThreshold()),
+                condition.clear(definition.getThreshold(), definition.getHysteresis()),
+                definition.getForDuration().toMillis(), appliesTo);
+    }
+
+    /**
+     * Evaluates the rule for one reading and updates the state the rule keeps for the sensor.
+     * A reading that is not newer than the previous one is ignored and leaves the state untouched.
+     *
+     * @param state     the state of this rule for the sensor that sent the reading
+     * @param value     the value of the metric in the reading
+     * @param timestamp the time of the reading in milliseconds
+     * @return the new status if the alert fired or resolved with this reading, otherwise {@code null}
+     */
+    Alert.Status evaluate(RuleState state, double value, long timestamp) {
+        long previousTimestamp = state.lastTimestamp;
+        if (previousTimestamp >= 0 && timestamp <= previousTimestamp) {
+            return null;
+        }
+        double previousValue = state.lastValue;
+        state.lastTimestamp = timestamp;
+        state.lastValue = value;
+        double observed = value;
+        if (rateOfChange) {
+            if (previousTimestamp < 0) {
+                return null;
+            }
+            observed = (value - previousValue) / ((timestamp - previousTimestamp) / MILLISECONDS_PER_MINUTE);
+        }
+        if (state.active) {
+            if (clear.test(observed)) {
+                state.active = false;
+                return Alert.Status.RESOLVED;
+            }
+            return null;
+        }
+        if (!trigger.test(observed)) {
+            state.pendingSince = -1;
+            return null;
+        }
+        if (state.pendingSince < 0) {
+            state.pendingSince = timestamp;
+        }
+        if (timestamp - state.pendingSince >= forMillis) {
+            state.active = true;
+            state.pendingSince = -1;
+            return Alert.Status.FIRING;
+        }
+        return null;
+    }
+}
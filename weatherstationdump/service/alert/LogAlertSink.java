@@ -0,0 +1,21 @@
+package pl.mlodawski.weatherstationdump.service.alert;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+/**
+ * Writes alerts to the application log.
+ */
+@Component
+@Slf4j
+public class LogAlertSink implements AlertSink {
+
+    @Override
+    public void send(Alert alert) {
+        if (alert.status() == Alert.Status.FIRING) {
+            log.warn("Alert {} firing for sensor {}: value {} (threshold {})", alert.rule(), alert.sensor(), alert.value(), alert.threshold());
+        } else {
+            log.info("Alert {} resolved for sensor {}: value {} (threshold {})", alert.rule(), alert.sensor(), alert.value(), alert.threshold());
+        }
+    }
+}
@@ -0,0 +1,82 @@
+package pl.mlodawski.weatherstationdump.service.alert;
+
+/**
+ * The state one rule keeps for one sensor between readings.
+ * It holds only what is needed to evaluate the next reading, so no history has to be rescanned.
+ */
+class RuleState {
+    /**
+     * Whether the alert is currently firing.
+     */
+    boolean active;
+    /**
+     * The time the trigger condition started to hold, or -1 when it does not hold.
+     */
+    long pendingSince = -1;
+    /**
+     * The value of the previous reading, used by rate of change rules.
+     */
+    double lastValue;
+    /**
+     * The time of the previous reading, or -1 before the first one. Readings that are not newer are ignored.
+     */
+    long lastTimestamp = -1;
+    /**
+     * The status of the last notification sent, or null before the first one.
+     */
+    Alert.Status lastSentStatus;
+    /**
+     * The wall clock time the last notification was sent. Deduplication always uses the wall clock, since readings
+     * may carry the capture time of a remote receiver.
+     */
+    long lastSentAt = Long.MIN_VALUE;
+    /**
+     * The latest transition held back because it happened within the deduplication window.
+     */
+    Alert pending;
+
+    /**
+     * Decides whether a transition is sent right away. Within the deduplication window of the last notification
+     * the transition is held back instead, so a flapping rule does not flood the sinks; the held back transition
+     * is sent by {@link #flush(long, long)} once the window is over.
+     *
+     * @param alert       the transition
+     * @param now         the current wall clock time in milliseconds since the epoch
+     * @param dedupWindow the minimum time between two notifications
+     * @return the alert to send now, or null
+     */
+    Alert notify(Alert alert, long now, long dedupWindow) {
+        if (lastSentStatus != null && now - lastSentAt < dedupWindow) {
+            pending = alert;
+            return null;
+        }
+        pending = null;
+        return markSent(alert, now);
+    }
+
+    /**
+     * Releases the held back transition once the deduplication window is over. It is only sent if it changes
+     * the status last reported to the sinks.
+     *
+     * @param now         the current wall clock time in milliseconds since the epoch
+     * @param dedupWindow the minimum time between two notifications
+     * @return the alert to send now, or null
+     */
+    Alert flush(long now, long dedupWindow) {
+        if (pending == null || now - lastSentAt < dedupWindow) {
+            return null;
+        }
+        Alert alert = pending;
+        pending = null;
+        return markSent(alert, now);
+    }
+
+    private Alert markSent(Alert alert, long now) {
+        if (alert.status() == lastSentStatus) {
+            return null;
+        }
+        lastSentStatus = alert.status();
+        lastSentAt = now;
+        return alert;
+    }
+}
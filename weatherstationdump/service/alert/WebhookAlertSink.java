@@ -0,0 +1,68 @@
+package pl.mlodawski.weatherstationdump.service.alert;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+import org.springframework.util.StringUtils;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+
+/**
+ * Posts alerts as JSON to the configured webhook URL.
+ * Requests are sent asynchronously, so a slow webhook never delays decoding.
+ * When the URL is set but empty, the sink stays idle and alerts are only logged.
+ */
+@Component
+@Slf4j
+@ConditionalOnProperty(prefix = "weather-station.alerts", name = "webhook-url")
+public class WebhookAlertSink implements AlertSink {
+
+    private static final Duration REQUEST_TIMEOUT = Duration.ofSeconds(10);
+
+    private final ObjectMapper objectMapper;
+    /**
+     * The webhook to post to, or null if the configured URL is empty.
+     */
+    private final URI webhookUri;
+    private final HttpClient httpClient = HttpClient.newBuilder().connectTimeout(REQUEST_TIMEOUT).build();
+
+    @Autowired
+    public WebhookAlertSink(AlertProperties alertProperties, ObjectMapper objectMapper) {
+        this.objectMapper = objectMapper;
+        this.webhookUri = StringUtils.hasText(alertProperties.getWebhookUrl()) ? URI.create(alertProperties.getWebhookUrl().trim()) : null;
+    }
+
+    @Override
+    public void send(Alert alert) {
+        if (webhookUri == null) {
+            return;
+        }
+        String body;
+        try {
+            body = objectMapper.writeValueAsString(alert);
+        } catch (JsonProcessingException e) {
+            log.error("Error while serializing alert {}", alert, e);
+            return;
+        }
+        HttpRequest request = HttpRequest.newBuilder(webhookUri)
+                .timeout(REQUEST_TIMEOUT)
+                .header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofString(body))
+                .build();
+        httpClient.sendAsync(request, HttpResponse.BodyHandlers.discarding())
+                .whenComplete((response, error) -> {
+                    if (error != null) {
+                        log.error("Error while posting alert {} to webhook", alert.rule(), error);
+                    } else if (response.statusCode() >= 300) {
+                        log.error("Webhook rejected alert {} with status {}", alert.rule(), response.statusCode());
+                    }
+                });
+    }
+}
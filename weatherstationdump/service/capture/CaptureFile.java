@@ -0,0 +1,37 @@
+package pl.mlodawski.weatherstationdump.service.capture;
+
+/**
+ * An entry of the capture archive index.
+ *
+ * @param fileName       the name of the compressed archive file
+ * @param firstTimestamp the time of the first line in the file, in milliseconds since the epoch
+ * @param lastTimestamp  the time of the last line in the file, in milliseconds since the epoch
+ * @param lineCount      the number of lines in the file
+ * @param sizeBytes      the compressed size of the file
+ */
+public record CaptureFile(String fileName, long firstTimestamp, long lastTimestamp, long lineCount, long sizeBytes) {
+
+    /**
+     * Checks whether the file holds lines from the given time range.
+     *
+     * @param from the start of the range in milliseconds since the epoch
+     * @param to   the end of the range in milliseconds since the epoch
+     * @return true if the file overlaps the range
+     */
+    public boolean overlaps(long from, long to) {
+        return firstTimestamp <= to && lastTimestamp >= from;
+    }
+
+    String toIndexLine() {
+        return fileName + '\t' + firstTimestamp + '\t' + lastTimestamp + '\t' + lineCount + '\t' + sizeBytes;
+    }
+
+    static CaptureFile fromIndexLine(String line) {
+        String[] parts = line.split("\t");
+        if (parts.length != 5) {
+            throw new IllegalArgumentException("Invalid capture index line: " + line);
+        }
+        return new CaptureFile(parts[0], Long.parseLong(parts[1]), Long.parseLong(parts[2]),
+                Long.parseLong(parts[3]), Long.parseLong(parts[4]));
+    }
+}
@@ -0,0 +1,356 @@
+package pl.mlodawski.weatherstationdump.service.capture;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Archives the raw output lines of rtl_433 into time rotated, gzip compressed files.
+ * <p>
+ * The reader thread only offers lines to a bounded buffer. A background writer drains the buffer,
+ * compresses the lines as a stream and rotates the file when the rotation interval has passed.
+ * When the buffer is full the line is dropped and counted instead of slowing down the reader.
+ * </p>
+ * <p>
+ * Every line is stored as {@code <epoch millis>\t<line>}. Closed files are listed in {@code index.tsv}
+ * with the time range they cover, so the capture of an incident window can be located without opening files.
+ * Files are deleted once they are older than the maximum age or the archive grows beyond its maximum size.
+ * </p>
+ */
+@Service
+@Slf4j
+public class RawCaptureArchive {
+
+    private static final String INDEX_FILE_NAME = "index.tsv";
+    private static final String FILE_PREFIX = "rtl433-";
+    private static final String FILE_SUFFIX = ".log.gz";
+    private static final DateTimeFormatter FILE_NAME_FORMATTER = DateTimeFormatter.ofPattern("yyyyMMdd'T'HHmmss'Z'").withZone(ZoneOffset.UTC);
+    private static final long POLL_TIMEOUT_IN_MILLISECONDS = 1000;
+    private static final int GZIP_BUFFER_SIZE = 64 * 1024;
+
+    private final RawCaptureProperties properties;
+    private final Path directory;
+    private final BlockingQueue<CapturedLine> buffer;
+    private final List<CaptureFile> index = new CopyOnWriteArrayList<>();
+    private final LongAdder droppedLines = new LongAdder();
+
+    private volatile boolean running;
+    private Thread writerThread;
+
+    private Writer currentWriter;
+    private Path currentPath;
+    private long currentOpenedAt;
+    private volatile long currentFirstTimestamp = -1;
+    private volatile long currentLastTimestamp = -1;
+    private long currentLineCount;
+    private boolean pendingFlush;
+
+    @Autowired
+    public RawCaptureArchive(RawCaptureProperties properties) {
+        this.properties = properties;
+        this.directory = Paths.get(properties.getDirectory());
+        this.buffer = new ArrayBlockingQueue<>(Math.max(1, properties.getBufferCapacity()));
+    }
+
+    /**
+     * Loads the archive index and starts the background writer when archiving is enabled.
+     *
+     * @throws IOException if the archive directory cannot be created
+     */
+    @PostConstruct
+    public void start() throws IOException {
+        if (!properties.isEnabled()) {
+            return;
+        }
+        Files.createDirectories(directory);
+        loadIndex();
+        applyRetention(System.currentTimeMillis());
+        running = true;
+        writerThread = new Thread(this::writeLoop, "raw-capture-writer");
+        writerThread.setDaemon(true);
+        writerThread.start();
+        log.info("Raw capture archive enabled in {}", directory.toAbsolutePath());
+    }
+
+    /**
+     * Stops the writer after it has drained the buffer and closes the current archive file.
+     */
+    @PreDestroy
+    public void stop() {
+        running = false;
+        if (writerThread != null) {
+            try {
+                writerThread.join(TimeUnit.SECONDS.toMillis(5));
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    /**
+     * Hands a raw rtl_433 output line to the archive. Never blocks; the line is dropped if the buffer is full.
+     *
+     * @param line the raw output line
+     */
+    public void offer(String line) {
+        if (running && !buffer.offer(new CapturedLine(System.currentTimeMillis(), line))) {
+            droppedLines.increment();
+        }
+    }
+
+    /**
+     * Lists the archive files holding lines from the given time window, including the file currently written.
+     *
+     * @param from the start of the window
+     * @param to   the end of the window
+     * @return the matching files, oldest first
+     */
+    public List<CaptureFile> locate(Instant from, Instant to) {
+        long fromMillis = from.toEpochMilli();
+        long toMillis = to.toEpochMilli();
+        List<CaptureFile> result = new ArrayList<>();
+        for (CaptureFile captureFile : index) {
+            if (captureFile.overlaps(fromMillis, toMillis)) {
+                result.add(captureFile);
+            }
+        }
+        Path path = currentPath;
+        long first = currentFirstTimestamp;
+        long last = currentLastTimestamp;
+        if (path != null && first >= 0 && first <= toMillis && last >= fromMillis) {
+            result.add(new CaptureFile(path.getFileName().toString(), first, last, -1, -1));
+        }
+        return result;
+    }
+
+    /**
+     * Returns the number of lines dropped because the writer could not keep up.
+     *
+     * @return the number of dropped lines
+     */
+    public long getDroppedLines() {
+        return droppedLines.sum();
+    }
+
+    private void writeLoop() {
+        while (running || !buffer.isEmpty()) {
+            try {
+                CapturedLine capturedLine = buffer.poll(POLL_TIMEOUT_IN_MILLISECONDS, TimeUnit.MILLISECONDS);
+                long now = System.currentTimeMillis();
+                if (currentWriter != null && now - currentOpenedAt >= properties.getRotationInterval().toMillis()) {
+                    closeCurrentFile();
+                    applyRetention(now);
+                }
+                if (capturedLine != null) {
+                    write(capturedLine);
+                } else if (pendingFlush) {
+                    currentWriter.flush();
+                    pendingFlush = false;
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                break;
+            } catch (IOException e) {
+                log.error("Error while writing raw capture archive", e);
+                abandonCurrentFile();
+            }
+        }
+        try {
+            closeCurrentFile();
+        } catch (IOException e) {
+            log.error("Error while closing raw capture archive", e);
+        }
+    }
+
+    private void write(CapturedLine capturedLine) throws IOException {
+        if (currentWriter == null) {
+            openFile(capturedLine.timestamp());
+        }
+        currentWriter.write(Long.toString(capturedLine.timestamp()));
+        currentWriter.write('\t');
+        currentWriter.write(capturedLine.line());
+        currentWriter.write('\n');
+        if (currentFirstTimestamp < 0) {
+            currentFirstTimestamp = capturedLine.timestamp();
+        }
+        currentLastTimestamp = capturedLine.timestamp();
+        currentLineCount++;
+        pendingFlush = true;
+    }
+
+    private void openFile(long timestamp) throws IOException {
+        String baseName = FILE_PREFIX + FILE_NAME_FORMATTER.format(Instant.ofEpochMilli(timestamp));
+        Path path = directory.resolve(baseName + FILE_SUFFIX);
+        for (int attempt = 1; Files.exists(path); attempt++) {
+            path = directory.resolve(baseName + "-" + attempt + FILE_SUFFIX);
+        }
+        currentWriter = new BufferedWriter(new OutputStreamWriter(
+                new GZIPOutputStream(Files.newOutputStream(path), GZIP_BUFFER_SIZE, true), StandardCharsets.UTF_8));
+        currentPath = path;
+        currentOpenedAt = System.currentTimeMillis();
+        currentFirstTimestamp = -1;
+        currentLastTimestamp = -1;
+        currentLineCount = 0;
+    }
+
+    private void closeCurrentFile() throws IOException {
+        if (currentWriter == null) {
+            return;
+        }
+        try {
+            currentWriter.close();
+            if (currentLineCount > 0) {
+                index.add(new CaptureFile(currentPath.getFileName().toString(), currentFirstTimestamp,
+                        currentLastTimestamp, currentLineCount, Files.size(currentPath)));
+                writeIndex();
+            } else {
+                Files.deleteIfExists(currentPath);
+            }
+        } finally {
+            currentWriter = null;
+            currentPath = null;
+            currentFirstTimestamp = -1;
+            currentLastTimestamp = -1;
+            pendingFlush = false;
+        }
+    }
+
+    private void abandonCurrentFile() {
+        try {
+            closeCurrentFile();
+        } catch (IOException e) {
+            log.error("Error while closing raw capture file {}", currentPath, e);
+            currentWriter = null;
+            currentPath = null;
+        }
+    }
+
+    private void applyRetention(long now) throws IOException {
+        long oldestAllowed = now - properties.getMaxAge().toMillis();
+        long maxTotalSize = properties.getMaxTotalSize().toBytes();
+        long totalSize = index.stream().mapToLong(CaptureFile::sizeBytes).sum();
+        List<CaptureFile> removed = new ArrayList<>();
+        for (CaptureFile captureFile : index) {
+            if (captureFile.lastTimestamp() >= oldestAllowed && totalSize <= maxTotalSize) {
+                break;
+            }
+            Files.deleteIfExists(directory.resolve(captureFile.fileName()));
+            totalSize -= captureFile.sizeBytes();
+            removed.add(captureFile);
+        }
+        if (!removed.isEmpty()) {
+            index.removeAll(removed);
+            writeIndex();
+            log.info("Removed {} raw capture files by retention", removed.size());
+        }
+    }
+
+    private void loadIndex() throws IOException {
+        Path indexPath = directory.resolve(INDEX_FILE_NAME);
+        List<CaptureFile> entries = new ArrayList<>();
+        if (Files.exists(indexPath)) {
+            for (String line : Files.readAllLines(indexPath, StandardCharsets.UTF_8)) {
+                if (!line.isBlank()) {
+                    CaptureFile captureFile = CaptureFile.fromIndexLine(line);
+                    if (Files.exists(directory.resolve(captureFile.fileName()))) {
+                        entries.add(captureFile);
+                    }
+                }
+            }
+        }
+        Set<String> indexed = new HashSet<>();
+        entries.forEach(captureFile -> indexed.add(captureFile.fileName()));
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(directory, FILE_PREFIX + "*" + FILE_SUFFIX)) {
+            for (Path file : files) {
+                if (!indexed.contains(file.getFileName().toString())) {
+                    CaptureFile recovered = recover(file);
+                    if (recovered != null) {
+                        entries.add(recovered);
+                    }
+                }
+            }
+        }
+        entries.sort(Comparator.comparingLong(CaptureFile::firstTimestamp));
+        index.addAll(entries);
+        writeIndex();
+    }
+
+    /**
+     * Rebuilds the index entry of a file that was not closed properly, e.g. after a crash.
+     * The file is read up to its last complete flush.
+     */
+    private CaptureFile recover(Path file) throws IOException {
+        long first = -1;
+        long last = -1;
+        long lineCount = 0;
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(
+                new GZIPInputStream(Files.newInputStream(file)), StandardCharsets.UTF_8))) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                int separator = line.indexOf('\t');
+                if (separator <= 0) {
+                    continue;
+                }
+                long timestamp = Long.parseLong(line.substring(0, separator));
+                if (first < 0) {
+                    first = timestamp;
+                }
+                last = timestamp;
+                lineCount++;
+            }
+        } catch (EOFException e) {
+            log.warn("Raw capture file {} is truncated, indexed up to its last complete line", file.getFileName());
+        } catch (IOException | NumberFormatException e) {
+            log.error("Error while recovering raw capture file {}", file.getFileName(), e);
+        }
+        if (lineCount == 0) {
+            return null;
+        }
+        return new CaptureFile(file.getFileName().toString(), first, last, lineCount, Files.size(file));
+    }
+
+    private void writeIndex() throws IOException {
+        Path indexPath = directory.resolve(INDEX_FILE_NAME);
+        Path tempPath = directory.resolve(INDEX_FILE_NAME + ".tmp");
+        List<String> lines = new ArrayList<>();
+        for (CaptureFile captureFile : index) {
+            lines.add(captureFile.toIndexLine());
+        }
+        Files.write(tempPath, lines, StandardCharsets.UTF_8);
+        Files.move(tempPath, indexPath, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    private record CapturedLine(long timestamp, String line) {
+    }
+}
@@ -0,0 +1,40 @@
+package pl.mlodawski.weatherstationdump.service.capture;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.util.unit.DataSize;
+
+import java.time.Duration;
+
+/**
+ * Configuration of the raw rtl_433 capture archive, bound from the {@code weather-station.capture} prefix.
+ */
+@Data
+@ConfigurationProperties(prefix = "weather-station.capture")
+public class RawCaptureProperties {
+
+    /**
+     * Whether the raw output of rtl_433 is archived.
+     */
+    private boolean enabled = false;
+    /**
+     * The directory the archive files and their index are written to.
+     */
+    private String directory = "capture";
+    /**
+     * How long one archive file is written to before a new one is started.
+     */
+    private Duration rotationInterval = Duration.ofHours(1);
+    /**
+     * The total size of the archive files above which the oldest ones are deleted.
+     */
+    private DataSize maxTotalSize = DataSize.ofMegabytes(512);
+    /**
+     * The age after which archive files are deleted.
+     */
+    private Duration maxAge = Duration.ofDays(14);
+    /**
+     * The number of lines buffered for the writer. Lines arriving while the buffer is full are dropped.
+     */
+    private int bufferCapacity = 8192;
+}
@@ -0,0 +1,48 @@
+package pl.mlodawski.weatherstationdump.service.ingest;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.time.OffsetDateTime;
+import java.time.ZoneId;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeFormatterBuilder;
+import java.time.temporal.TemporalAccessor;
+import java.util.regex.Pattern;
+
+/**
+ * Parses the capture times sent by remote receivers, in the formats rtl_433 prints with its {@code -M time} option.
+ */
+final class CaptureTimes {
+
+    private static final Pattern UNIX_TIME = Pattern.compile("\\d+(\\.\\d+)?");
+    private static final DateTimeFormatter DATE_TIME = new DateTimeFormatterBuilder()
+            .append(DateTimeFormatter.ISO_LOCAL_DATE_TIME)
+            .optionalStart().appendOffset("+HH:MM", "Z").optionalEnd()
+            .optionalStart().appendOffset("+HHMM", "Z").optionalEnd()
+            .toFormatter();
+
+    private CaptureTimes() {
+    }
+
+    /**
+     * Parses a capture time. Accepted are unix time in seconds with an optional fraction ({@code 1697710800.25},
+     * as printed with {@code -M time:unix}) and a date and time separated by a space or {@code T}, optionally
+     * with fractional seconds and a UTC offset ({@code 2023-10-19 10:20:00}, {@code 2023-10-19T10:20:00+0200}).
+     *
+     * @param text the capture time
+     * @param zone the time zone of a date and time without an offset
+     * @return the capture time in milliseconds since the epoch
+     * @throws java.time.DateTimeException if the text is not a capture time in one of the accepted formats
+     */
+    static long parse(String text, ZoneId zone) {
+        String trimmed = text.trim();
+        if (UNIX_TIME.matcher(trimmed).matches()) {
+            return new BigDecimal(trimmed).movePointRight(3).longValue();
+        }
+        TemporalAccessor parsed = DATE_TIME.parseBest(trimmed.replace(' ', 'T'), OffsetDateTime::from, LocalDateTime::from);
+        if (parsed instanceof OffsetDateTime offsetDateTime) {
+            return offsetDateTime.toInstant().toEpochMilli();
+        }
+        return ((LocalDateTime) parsed).atZone(zone).toInstant().toEpochMilli();
+    }
+}
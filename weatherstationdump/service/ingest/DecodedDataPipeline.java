@@ -0,0 +1,270 @@
+package pl.mlodawski.weatherstationdump.service.ingest;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+import pl.mlodawski.weatherstationdump.model.DecodedData;
+import pl.mlodawski.weatherstationdump.model.SensorKey;
+import pl.mlodawski.weatherstationdump.service.DecodedDataEvent;
+import pl.mlodawski.weatherstationdump.service.registry.SensorEvictedEvent;
+import pl.mlodawski.weatherstationdump.service.snapshot.SnapshotIO;
+import pl.mlodawski.weatherstationdump.service.snapshot.SnapshotParticipant;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * The common tail of the ingest pipeline: every decoded frame, from the local receiver or a remote one,
+ * is queued here, deduplicated and published as a {@link DecodedDataEvent}.
+ * <p>
+ * A single publisher thread drains the bounded queue, so the event listeners see the frames one at a time.
+ * The local reader waits for room in the queue, while remote batches only wait for a short time and are
+ * rejected when the queue stays full.
+ * </p>
+ * <p>
+ * A frame with the same values as the last published one of its sensor within the deduplication window is the same
+ * transmission heard by another receiver, or a repeat of it, and is dropped. Frames resent by a remote receiver are
+ * recognized before they are queued, by the capture time the receiver last delivered for the sensor, see
+ * {@link #isResent(DecodedData)}.
+ * </p>
+ * <p>
+ * Frames are published in the order they arrive, which is not always the order they were captured in. A frame older
+ * than the newest published frame of its sensor is published as {@link DecodedDataEvent#isLate() late}, so it only
+ * goes to the history and never replaces the latest state of the sensor.
+ * </p>
+ * <p>
+ * The newest frame of every sensor and the capture times delivered by every receiver are part of the state
+ * snapshot, so resent batches and late frames are still recognized after a restart.
+ * </p>
+ */
+@Service
+@Slf4j
+public class DecodedDataPipeline implements SnapshotParticipant {
+
+    private final ApplicationEventPublisher eventPublisher;
+    private final BlockingQueue<DecodedData> queue;
+    private final long dedupWindowMillis;
+    /**
+     * The newest frame published for each sensor.
+     */
+    private final Map<SensorKey, DecodedData> lastPublished = new ConcurrentHashMap<>();
+    private final Map<FrameSource, Long> lastCaptureTimes = new ConcurrentHashMap<>();
+    private final LongAdder duplicates = new LongAdder();
+    private final LongAdder lateFrames = new LongAdder();
+
+    private volatile boolean running;
+    private Thread publisherThread;
+
+    @Autowired
+    public DecodedDataPipeline(ApplicationEventPublisher eventPublisher, IngestProperties properties) {
+        this.eventPublisher = eventPublisher;
+        this.queue = new ArrayBlockingQueue<>(Math.max(1, properties.getQueueCapacity()));
+        this.dedupWindowMillis = properties.getDedupWindow().toMillis();
+    }
+
+    @PostConstruct
+    public void start() {
+        running = true;
+        publisherThread = new Thread(this::publishLoop, "decoded-data-publisher");
+        publisherThread.setDaemon(true);
+        publisherThread.start();
+    }
+
+    /**
+     * Stops the publisher after it has published the queued frames.
+     */
+    @PreDestroy
+    public void stop() {
+        running = false;
+        if (publisherThread != null) {
+            try {
+                publisherThread.join(TimeUnit.SECONDS.toMillis(5));
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    /**
+     * Queues a frame, waiting as long as the queue is full.
+     *
+     * @param decodedData the decoded frame
+     * @throws InterruptedException if the thread is interrupted while waiting
+     */
+    public void submit(DecodedData decodedData) throws InterruptedException {
+        queue.put(decodedData);
+    }
+
+    /**
+     * Queues a frame, waiting at most the given time for room in the queue.
+     *
+     * @param decodedData the decoded frame
+     * @param timeout     the maximum time to wait
+     * @param unit        the unit of the timeout
+     * @return false if the queue stayed full
+     * @throws InterruptedException if the thread is interrupted while waiting
+     */
+    public boolean offer(DecodedData decodedData, long timeout, TimeUnit unit) throws InterruptedException {
+        return queue.offer(decodedData, timeout, unit);
+    }
+
+    /**
+     * Checks whether the receiver of a frame already delivered a frame of the same sensor captured at the same time
+     * or later, i.e. whether the frame is part of a resent batch. Only frames carrying the capture time reported by
+     * their receiver can be checked this way.
+     *
+     * @param decodedData the decoded frame
+     * @return true if the frame was delivered before
+     */
+    public boolean isResent(DecodedData decodedData) {
+        Long lastCaptureTime = lastCaptureTimes.get(FrameSource.of(decodedData));
+        return lastCaptureTime != null && decodedData.getTimestamp() <= lastCaptureTime;
+    }
+
+    /**
+     * Remembers the capture time of a frame queued for its receiver, see {@link #isResent(DecodedData)}.
+     *
+     * @param decodedData the queued frame
+     */
+    public void recordDelivery(DecodedData decodedData) {
+        lastCaptureTimes.merge(FrameSource.of(decodedData), decodedData.getTimestamp(), Math::max);
+    }
+
+    /**
+     * Checks whether the queue is full.
+     *
+     * @return true if no frame can be queued right now
+     */
+    public boolean isFull() {
+        return queue.remainingCapacity() == 0;
+    }
+
+    public long getDuplicateCount() {
+        return duplicates.sum();
+    }
+
+    public long getLateCount() {
+        return lateFrames.sum();
+    }
+
+    /**
+     * Drops the deduplication state of a sensor the registry no longer tracks.
+     *
+     * @param event The SensorEvictedEvent naming the evicted sensor.
+     */
+    @EventListener
+    public void onSensorEvicted(SensorEvictedEvent event) {
+        lastPublished.remove(event.getSensorKey());
+        lastCaptureTimes.keySet().removeIf(source -> source.sensorKey().equals(event.getSensorKey()));
+    }
+
+    @Override
+    public String snapshotSection() {
+        return "ingest";
+    }
+
+    @Override
+    public void writeSnapshot(DataOutput out) throws IOException {
+        Map<SensorKey, DecodedData> newest = new HashMap<>(lastPublished);
+        out.writeInt(newest.size());
+        for (Map.Entry<SensorKey, DecodedData> entry : newest.entrySet()) {
+            SnapshotIO.writeSensorKey(out, entry.getKey());
+            SnapshotIO.writeDecodedData(out, entry.getValue());
+        }
+        Map<FrameSource, Long> captureTimes = new HashMap<>(lastCaptureTimes);
+        out.writeInt(captureTimes.size());
+        for (Map.Entry<FrameSource, Long> entry : captureTimes.entrySet()) {
+            SnapshotIO.writeNullableString(out, entry.getKey().receiverId());
+            SnapshotIO.writeSensorKey(out, entry.getKey().sensorKey());
+            out.writeLong(entry.getValue());
+        }
+    }
+
+    @Override
+    public void restoreSnapshot(DataInput in) throws IOException {
+        lastPublished.clear();
+        int sensorCount = in.readInt();
+        for (int i = 0; i < sensorCount; i++) {
+            SensorKey sensorKey = SnapshotIO.readSensorKey(in);
+            DecodedData decodedData = SnapshotIO.readDecodedData(in);
+            if (decodedData != null) {
+                lastPublished.put(sensorKey, decodedData);
+            }
+        }
+        lastCaptureTimes.clear();
+        int sourceCount = in.readInt();
+        for (int i = 0; i < sourceCount; i++) {
+            String receiverId = SnapshotIO.readNullableString(in);
+            SensorKey sensorKey = SnapshotIO.readSensorKey(in);
+            lastCaptureTimes.put(new FrameSource(receiverId, sensorKey), in.readLong());
+        }
+    }
+
+    private void publishLoop() {
+        while (running || !queue.isEmpty()) {
+            try {
+                DecodedData decodedData = queue.poll(1, TimeUnit.SECONDS);
+                if (decodedData != null) {
+                    publish(decodedData);
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } catch (RuntimeException e) {
+                log.error("Error while publishing decoded data", e);
+            }
+        }
+    }
+
+    /**
+     * Publishes a frame unless it is a duplicate, marking it as late if a newer frame of its sensor was published.
+     */
+    private void publish(DecodedData decodedData) {
+        SensorKey sensorKey = SensorKey.of(decodedData);
+        DecodedData newest = lastPublished.get(sensorKey);
+        if (isDuplicate(newest, decodedData)) {
+            duplicates.increment();
+            return;
+        }
+        boolean late = newest != null && decodedData.getTimestamp() < newest.getTimestamp();
+        if (late) {
+            lateFrames.increment();
+        } else {
+            lastPublished.put(sensorKey, decodedData);
+        }
+        eventPublisher.publishEvent(new DecodedDataEvent(this, decodedData, late));
+    }
+
+    /**
+     * Checks whether the same sensor published the same values within the deduplication window.
+     */
+    private boolean isDuplicate(DecodedData previous, DecodedData decodedData) {
+        return previous != null
+                && Math.abs(decodedData.getTimestamp() - previous.getTimestamp()) < dedupWindowMillis
+                && previous.getTemperatureC() == decodedData.getTemperatureC()
+                && previous.getHumidity() == decodedData.getHumidity()
+                && previous.isBatteryOk() == decodedData.isBatteryOk();
+    }
+
+    /**
+     * A sensor as heard by one receiver.
+     */
+    private record FrameSource(String receiverId, SensorKey sensorKey) {
+
+        private static FrameSource of(DecodedData decodedData) {
+            return new FrameSource(decodedData.getReceiverId(), SensorKey.of(decodedData));
+        }
+    }
+}
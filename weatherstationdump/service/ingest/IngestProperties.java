@@ -0,0 +1,36 @@
+package pl.mlodawski.weatherstationdump.service.ingest;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+
+/**
+ * Configuration of the decoded data pipeline and the remote ingest endpoint, bound from the
+ * {@code weather-station.ingest} prefix.
+ */
+@Data
+@ConfigurationProperties(prefix = "weather-station.ingest")
+public class IngestProperties {
+
+    /**
+     * The number of decoded frames waiting to be published.
+     */
+    private int queueCapacity = 1024;
+    /**
+     * How long a remote batch waits for room in the queue before it is answered with 429 (TOO MANY REQUESTS).
+     */
+    private Duration offerTimeout = Duration.ofMillis(200);
+    /**
+     * Frames of the same sensor with the same values are published only once within this window,
+     * e.g. when several receivers hear the same transmission.
+     */
+    private Duration dedupWindow = Duration.ofSeconds(10);
+    /**
+     * The time zone of remote capture times sent without a UTC offset, such as the default {@code time} field of
+     * rtl_433. Receivers are best run with {@code -M time:utc} or {@code -M time:unix} to avoid depending on it.
+     */
+    private ZoneId remoteTimeZone = ZoneOffset.UTC;
+}
@@ -0,0 +1,16 @@
+package pl.mlodawski.weatherstationdump.service.ingest;
+
+/**
+ * The outcome of a remote ingest batch.
+ *
+ * @param receiverId    the receiver that sent the batch
+ * @param lines         the number of lines read from the batch
+ * @param consumedLines the number of leading lines fully processed; a batch that was cut short is resumed after them.
+ *                      Raw output lines are consumed up to the last queued frame, so a signal is never split
+ * @param frames        the number of decoded frames queued for publishing
+ * @param resentFrames  the number of frames skipped because the receiver delivered them before
+ * @param invalidLines  the number of JSON records and capture time markers that could not be read
+ * @param accepted      false if the batch was cut short because the pipeline queue was full
+ */
+public record IngestResult(String receiverId, long lines, long consumedLines, long frames, long resentFrames, long invalidLines, boolean accepted) {
+}
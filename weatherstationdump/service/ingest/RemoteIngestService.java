@@ -0,0 +1,210 @@
+package pl.mlodawski.weatherstationdump.service.ingest;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+import pl.mlodawski.weatherstationdump.model.DecodedData;
+import pl.mlodawski.weatherstationdump.model.SignalData;
+import pl.mlodawski.weatherstationdump.service.WeatherStationCommandService;
+import pl.mlodawski.weatherstationdump.service.logging.HotPathLogger;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.time.DateTimeException;
+import java.time.ZoneId;
+import java.util.Locale;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Feeds batches sent by remote receivers into the same pipeline as the local receiver.
+ * <p>
+ * A batch is read line by line from the request stream, so it is never buffered as a whole. Raw rtl_433
+ * output lines go through the same parser and decoder as the local receiver; JSON records in the rtl_433
+ * {@code -F json} format are mapped directly.
+ * </p>
+ * <p>
+ * Frames are stamped with the time the receiver captured them, not the time the batch arrives, since a batch
+ * may hold minutes of readings. JSON records carry it in their {@code time} field. Raw output has no time of its
+ * own, so a line holding {@value #CAPTURE_TIME_MARKER} followed by a capture time precedes each signal and sets the
+ * capture time of that signal only. Frames without a capture time are stamped with the time they are decoded.
+ * </p>
+ * <p>
+ * Decoded frames are queued on the {@link DecodedDataPipeline}, which deduplicates and publishes them. When the
+ * queue stays full the batch is cut short and reported as not accepted. A frame with a capture time that is not
+ * newer than the last one the receiver delivered for the same sensor is skipped and reported as resent, so
+ * a receiver whose frames carry capture times can resend the whole batch. Frames without a capture time are
+ * stamped anew on every delivery and would be published twice, so such a receiver resends only the lines after
+ * the {@link IngestResult#consumedLines()} of a batch that was cut short.
+ * </p>
+ */
+@Service
+@Slf4j
+public class RemoteIngestService {
+
+    /**
+     * Starts a raw output line setting the capture time of the signal that follows.
+     */
+    public static final String CAPTURE_TIME_MARKER = "@";
+    /**
+     * The rate limit key of all remote ingest errors. Receiver IDs are chosen by the clients, so keying by them
+     * would let the rate limiter grow without bound.
+     */
+    private static final String INGEST_ERROR_LOG_KEY = "ingest-error";
+
+    private final WeatherStationCommandService weatherStationCommandService;
+    private final DecodedDataPipeline decodedDataPipeline;
+    private final HotPathLogger hotPathLogger;
+    private final ObjectMapper objectMapper;
+    private final long offerTimeoutMillis;
+    private final ZoneId remoteTimeZone;
+
+    @Autowired
+    public RemoteIngestService(WeatherStationCommandService weatherStationCommandService, DecodedDataPipeline decodedDataPipeline,
+                               HotPathLogger hotPathLogger, ObjectMapper objectMapper, IngestProperties properties) {
+        this.weatherStationCommandService = weatherStationCommandService;
+        this.decodedDataPipeline = decodedDataPipeline;
+        this.hotPathLogger = hotPathLogger;
+        this.objectMapper = objectMapper;
+        this.offerTimeoutMillis = properties.getOfferTimeout().toMillis();
+        this.remoteTimeZone = properties.getRemoteTimeZone();
+    }
+
+    /**
+     * Reads a batch and queues its decoded frames.
+     *
+     * @param receiverId the ID of the receiver that sent the batch
+     * @param json       true if the batch holds JSON records, false if it holds raw rtl_433 output lines
+     * @param body       the uncompressed batch
+     * @return the outcome of the batch
+     * @throws IOException if the batch cannot be read
+     */
+    public IngestResult ingest(String receiverId, boolean json, InputStream body) throws IOException {
+        if (receiverId == null || receiverId.isBlank()) {
+            throw new IllegalArgumentException("Receiver ID is required");
+        }
+        if (decodedDataPipeline.isFull()) {
+            return new IngestResult(receiverId, 0, 0, 0, 0, 0, false);
+        }
+        BufferedReader reader = new BufferedReader(new InputStreamReader(body, StandardCharsets.UTF_8));
+        SignalData signalData = new SignalData();
+        signalData.setReceiverId(receiverId);
+        long lines = 0;
+        long consumedLines = 0;
+        long frames = 0;
+        long resentFrames = 0;
+        long invalidLines = 0;
+        String line;
+        while ((line = reader.readLine()) != null) {
+            lines++;
+            DecodedData decodedData;
+            boolean captured;
+            if (json) {
+                if (line.isBlank()) {
+                    continue;
+                }
+                decodedData = readJsonRecord(line, receiverId);
+                if (decodedData == null) {
+                    invalidLines++;
+                    continue;
+                }
+                captured = decodedData.getTimestamp() > 0;
+                if (!captured) {
+                    decodedData.setTimestamp(System.currentTimeMillis());
+                }
+            } else if (line.startsWith(CAPTURE_TIME_MARKER)) {
+                if (!readCaptureTime(line, signalData)) {
+                    invalidLines++;
+                }
+                continue;
+            } else {
+                captured = signalData.getCaptureTime() > 0;
+                decodedData = weatherStationCommandService.parseLine(line, signalData);
+            }
+            if (decodedData == null) {
+                continue;
+            }
+            if (captured && decodedDataPipeline.isResent(decodedData)) {
+                resentFrames++;
+                consumedLines = lines;
+                continue;
+            }
+            try {
+                if (!decodedDataPipeline.offer(decodedData, offerTimeoutMillis, TimeUnit.MILLISECONDS)) {
+                    return new IngestResult(receiverId, lines, json ? lines - 1 : consumedLines, frames, resentFrames, invalidLines, false);
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return new IngestResult(receiverId, lines, json ? lines - 1 : consumedLines, frames, resentFrames, invalidLines, false);
+            }
+            if (captured) {
+                decodedDataPipeline.recordDelivery(decodedData);
+            }
+            frames++;
+            consumedLines = lines;
+        }
+        return new IngestResult(receiverId, lines, lines, frames, resentFrames, invalidLines, true);
+    }
+
+    /**
+     * Sets the capture time of the following signal from a capture time marker line.
+     *
+     * @return false if the line does not hold a valid capture time
+     */
+    private boolean readCaptureTime(String line, SignalData signalData) {
+        try {
+            signalData.setCaptureTime(CaptureTimes.parse(line.substring(CAPTURE_TIME_MARKER.length()), remoteTimeZone));
+            return true;
+        } catch (DateTimeException e) {
+            hotPathLogger.error(log, INGEST_ERROR_LOG_KEY, "Invalid capture time from receiver {}: {}", signalData.getReceiverId(), line);
+            return false;
+        }
+    }
+
+    /**
+     * Maps a JSON record in the rtl_433 {@code -F json} format.
+     * The capture time is taken from its {@code time} field; it is left at 0 if the field is missing.
+     *
+     * @return the decoded data, or null if the record misses the sensor ID, has an invalid time or is not valid JSON
+     */
+    private DecodedData readJsonRecord(String line, String receiverId) {
+        JsonNode record;
+        try {
+            record = objectMapper.readTree(line);
+        } catch (JsonProcessingException e) {
+            hotPathLogger.error(log, INGEST_ERROR_LOG_KEY, "Invalid JSON record from receiver {}: {}", receiverId, e.getOriginalMessage());
+            return null;
+        }
+        if (!record.hasNonNull("id")) {
+            hotPathLogger.error(log, INGEST_ERROR_LOG_KEY, "JSON record from receiver {} has no sensor ID", receiverId);
+            return null;
+        }
+        DecodedData decodedData = new DecodedData();
+        decodedData.setModel(record.path("model").asText(null));
+        decodedData.setId(record.path("id").asInt());
+        decodedData.setChannel(record.path("channel").asInt());
+        decodedData.setBatteryOk(record.path("battery_ok").asInt(1) == 1);
+        decodedData.setTemperatureC(record.path("temperature_C").asDouble());
+        decodedData.setHumidity(record.path("humidity").asInt());
+        JsonNode time = record.path("time");
+        if (!time.isMissingNode() && !time.isNull()) {
+            String text = time.isNumber() ? time.decimalValue().toPlainString() : time.asText();
+            try {
+                decodedData.setTimestamp(CaptureTimes.parse(text, remoteTimeZone));
+            } catch (DateTimeException e) {
+                hotPathLogger.error(log, INGEST_ERROR_LOG_KEY, "JSON record from receiver {} has an invalid time: {}", receiverId, text);
+                return null;
+            }
+        }
+        if (record.path("freq").isNumber()) {
+            decodedData.setFrequency(String.format(Locale.ROOT, "%.3fM", record.path("freq").asDouble()));
+        }
+        decodedData.setReceiverId(receiverId);
+        return decodedData;
+    }
+}
@@ -0,0 +1,31 @@
+package pl.mlodawski.weatherstationdump.service.logging;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+/**
+ * Configuration of the hot path logger, bound from the {@code weather-station.hot-path-log} prefix.
+ */
+@Data
+@ConfigurationProperties(prefix = "weather-station.hot-path-log")
+public class HotPathLogProperties {
+
+    /**
+     * The sustained number of messages per second logged for one key, e.g. one sensor.
+     */
+    private double ratePerSecond = 0.2;
+    /**
+     * The number of messages for one key that may be logged in a burst before the rate applies.
+     */
+    private int burst = 5;
+    /**
+     * The number of messages waiting for the background writer. Messages arriving while it is full are dropped.
+     */
+    private int queueCapacity = 1024;
+    /**
+     * How often the number of suppressed and dropped messages is logged.
+     */
+    private Duration summaryInterval = Duration.ofMinutes(1);
+}
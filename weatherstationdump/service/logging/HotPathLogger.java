@@ -0,0 +1,206 @@
+package pl.mlodawski.weatherstationdump.service.logging;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.slf4j.Logger;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import pl.mlodawski.weatherstationdump.service.registry.SensorEvictedEvent;
+
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Logs from the decode hot path without slowing down the reader thread.
+ * <p>
+ * Every message is rate limited per key, typically the sensor it is about, with a token bucket. Messages
+ * over the limit are only counted. Messages within the limit are put on a bounded queue together with their
+ * unformatted arguments, and a background thread formats and writes them through the given logger. When the
+ * queue is full the message is dropped and counted. The reader thread therefore only pays for the bucket
+ * check and the queue offer. The numbers of suppressed and dropped messages are logged periodically.
+ * </p>
+ * <p>
+ * Arguments are formatted later on the background thread, so they must not be modified after they are logged.
+ * </p>
+ */
+@Component
+@Slf4j
+public class HotPathLogger {
+
+    private final double tokensPerNanosecond;
+    private final double burst;
+    private final long summaryIntervalNanos;
+    private final BlockingQueue<LogRecord> queue;
+    private final Map<Object, TokenBucket> buckets = new ConcurrentHashMap<>();
+    private final LongAdder suppressed = new LongAdder();
+    private final LongAdder dropped = new LongAdder();
+
+    private volatile boolean running;
+    private Thread writerThread;
+
+    @Autowired
+    public HotPathLogger(HotPathLogProperties properties) {
+        this.tokensPerNanosecond = properties.getRatePerSecond() / TimeUnit.SECONDS.toNanos(1);
+        this.burst = Math.max(1, properties.getBurst());
+        this.summaryIntervalNanos = properties.getSummaryInterval().toNanos();
+        this.queue = new ArrayBlockingQueue<>(Math.max(1, properties.getQueueCapacity()));
+    }
+
+    @PostConstruct
+    public void start() {
+        running = true;
+        writerThread = new Thread(this::writeLoop, "hot-path-log-writer");
+        writerThread.setDaemon(true);
+        writerThread.start();
+    }
+
+    /**
+     * Stops the background writer after it has written the queued messages.
+     */
+    @PreDestroy
+    public void stop() {
+        running = false;
+        if (writerThread != null) {
+            try {
+                writerThread.join(TimeUnit.SECONDS.toMillis(5));
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    /**
+     * Logs an info message, unless the rate limit of the key is exhausted.
+     *
+     * @param logger    the logger to write through
+     * @param key       the key the rate limit applies to, e.g. a sensor; keys must come from a bounded set, since
+     *                  only the buckets of evicted sensors are ever removed
+     * @param format    the SLF4J message format
+     * @param arguments the message arguments; a trailing Throwable is logged with its stack trace
+     */
+    public void info(Logger logger, Object key, String format, Object... arguments) {
+        log(Level.INFO, logger, key, format, arguments);
+    }
+
+    /**
+     * Logs an error message, unless the rate limit of the key is exhausted.
+     *
+     * @param logger    the logger to write through
+     * @param key       the key the rate limit applies to, e.g. a sensor
+     * @param format    the SLF4J message format
+     * @param arguments the message arguments; a trailing Throwable is logged with its stack trace
+     */
+    public void error(Logger logger, Object key, String format, Object... arguments) {
+        log(Level.ERROR, logger, key, format, arguments);
+    }
+
+    /**
+     * Drops the rate limit state of a sensor the registry no longer tracks.
+     *
+     * @param event The SensorEvictedEvent naming the evicted sensor.
+     */
+    @EventListener
+    public void onSensorEvicted(SensorEvictedEvent event) {
+        buckets.remove(event.getSensorKey());
+    }
+
+    public long getSuppressedCount() {
+        return suppressed.sum();
+    }
+
+    public long getDroppedCount() {
+        return dropped.sum();
+    }
+
+    private void log(Level level, Logger logger, Object key, String format, Object[] arguments) {
+        if (!level.isEnabled(logger)) {
+            return;
+        }
+        TokenBucket bucket = buckets.computeIfAbsent(key, ignored -> new TokenBucket(burst));
+        if (!bucket.tryAcquire(System.nanoTime(), tokensPerNanosecond, burst)) {
+            suppressed.increment();
+            return;
+        }
+        if (!running || !queue.offer(new LogRecord(level, logger, format, arguments))) {
+            dropped.increment();
+        }
+    }
+
+    private void writeLoop() {
+        long nextSummary = System.nanoTime() + summaryIntervalNanos;
+        long reportedSuppressed = 0;
+        long reportedDropped = 0;
+        while (running || !queue.isEmpty()) {
+            try {
+                LogRecord logRecord = queue.poll(1, TimeUnit.SECONDS);
+                if (logRecord != null) {
+                    logRecord.write();
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } catch (RuntimeException e) {
+                log.error("Error while writing hot path log message", e);
+            }
+            long now = System.nanoTime();
+            if (now - nextSummary >= 0) {
+                nextSummary = now + summaryIntervalNanos;
+                long totalSuppressed = suppressed.sum();
+                long totalDropped = dropped.sum();
+                if (totalSuppressed != reportedSuppressed || totalDropped != reportedDropped) {
+                    log.info("Hot path logging suppressed {} and dropped {} messages since the last summary",
+                            totalSuppressed - reportedSuppressed, totalDropped - reportedDropped);
+                    reportedSuppressed = totalSuppressed;
+                    reportedDropped = totalDropped;
+                }
+            }
+        }
+    }
+
+    private enum Level {
+        INFO,
+        ERROR;
+
+        private boolean isEnabled(Logger logger) {
+            return this == INFO ? logger.isInfoEnabled() : logger.isErrorEnabled();
+        }
+    }
+
+    private record LogRecord(Level level, Logger logger, String format, Object[] arguments) {
+        private void write() {
+            if (level == Level.INFO) {
+                logger.info(format, arguments);
+            } else {
+                logger.error(format, arguments);
+            }
+        }
+    }
+
+    /**
+     * A token bucket refilled lazily on every acquisition, so idle keys cost nothing.
+     */
+    private static class TokenBucket {
+        private double tokens;
+        private long lastRefill = System.nanoTime();
+
+        private TokenBucket(double tokens) {
+            this.tokens = tokens;
+        }
+
+        private synchronized boolean tryAcquire(long now, double tokensPerNanosecond, double burst) {
+            tokens = Math.min(burst, tokens + (now - lastRefill) * tokensPerNanosecond);
+            lastRefill = now;
+            if (tokens < 1) {
+                return false;
+            }
+            tokens--;
+            return true;
+        }
+    }
+}
@@ -0,0 +1,14 @@
+package pl.mlodawski.weatherstationdump.service.receiver;
+
+/**
+ * The capture statistics of one band.
+ *
+ * @param frequency        the frequency of the band
+ * @param packetsPerMinute the smoothed rate of demodulated packets while the receiver is on the band
+ * @param totalPackets     the number of packets demodulated on the band, decodable or not
+ * @param totalFrames      the number of frames decoded on the band
+ * @param totalDwellMillis the total time spent on the band
+ * @param nextDwellMillis  the dwell time the band gets in the next cycle
+ */
+public record BandStatistics(String frequency, double packetsPerMinute, long totalPackets, long totalFrames, long totalDwellMillis, long nextDwellMillis) {
+}
@@ -0,0 +1,52 @@
+package pl.mlodawski.weatherstationdump.service.receiver;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Configuration of the receiver frequencies, bound from the {@code weather-station.hopping} prefix.
+ * With a single band the receiver stays on it; with more bands it hops between them.
+ */
+@Data
+@ConfigurationProperties(prefix = "weather-station.hopping")
+public class FrequencyHoppingProperties {
+
+    /**
+     * The bands the receiver cycles through.
+     */
+    private List<Band> bands = new ArrayList<>(List.of(Band.of("433.902M")));
+    /**
+     * The time one cycle through all bands should take. It is shared between the bands by their packet rate.
+     */
+    private Duration cycle = Duration.ofMinutes(10);
+    /**
+     * The weight of the latest dwell in the smoothed packet rate of a band, between 0 and 1.
+     */
+    private double rateSmoothing = 0.3;
+
+    @Data
+    public static class Band {
+        /**
+         * The frequency in rtl_433 notation, e.g. {@code 868.3M}.
+         */
+        private String frequency;
+        /**
+         * The shortest time spent on the band per cycle, so quiet bands are still sampled.
+         */
+        private Duration minDwell = Duration.ofSeconds(30);
+        /**
+         * The longest time spent on the band per cycle.
+         */
+        private Duration maxDwell = Duration.ofMinutes(5);
+
+        static Band of(String frequency) {
+            Band band = new Band();
+            band.setFrequency(frequency);
+            return band;
+        }
+    }
+}
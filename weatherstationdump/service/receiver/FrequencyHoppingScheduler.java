@@ -0,0 +1,146 @@
+package pl.mlodawski.weatherstationdump.service.receiver;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Decides which band the single receiver listens to and for how long.
+ * <p>
+ * The bands are visited round robin. The configured cycle time is shared between them in proportion to
+ * the smoothed rate of demodulated packets observed on each band, whatever their protocol, clamped to the band's minimum and maximum dwell, so busy
+ * bands get more time while quiet bands are still sampled. Until a band has been measured it gets an equal share.
+ * </p>
+ */
+@Component
+@Slf4j
+public class FrequencyHoppingScheduler {
+
+    /**
+     * The packet rate assumed for a band that has not been measured yet.
+     */
+    private static final double INITIAL_RATE = 1.0;
+    /**
+     * The lowest packet rate used when sharing the cycle, so a silent band keeps a non-zero weight.
+     */
+    private static final double MIN_RATE = 0.1;
+    private static final double MILLISECONDS_PER_MINUTE = 60_000.0;
+
+    private final List<BandState> bands = new ArrayList<>();
+    private final long cycleMillis;
+    private final double rateSmoothing;
+    private int nextBand;
+
+    @Autowired
+    public FrequencyHoppingScheduler(FrequencyHoppingProperties properties) {
+        if (properties.getBands().isEmpty()) {
+            throw new IllegalArgumentException("At least one receiver band has to be configured");
+        }
+        for (FrequencyHoppingProperties.Band band : properties.getBands()) {
+            bands.add(new BandState(band));
+        }
+        this.cycleMillis = properties.getCycle().toMillis();
+        this.rateSmoothing = Math.min(1.0, Math.max(0.0, properties.getRateSmoothing()));
+    }
+
+    /**
+     * Checks whether more than one band is configured, i.e. whether the receiver has to hop at all.
+     *
+     * @return true if the receiver hops between bands
+     */
+    public boolean isHopping() {
+        return bands.size() > 1;
+    }
+
+    /**
+     * Picks the next band and the time to spend on it.
+     *
+     * @return the next dwell
+     */
+    public synchronized Dwell nextDwell() {
+        BandState band = bands.get(nextBand);
+        nextBand = (nextBand + 1) % bands.size();
+        return new Dwell(band.frequency, Duration.ofMillis(dwellMillis(band)));
+    }
+
+    /**
+     * Records the outcome of a dwell and updates the packet rate of its band.
+     *
+     * @param frequency the frequency of the band
+     * @param packets   the number of packets demodulated during the dwell, decodable or not
+     * @param frames    the number of frames decoded during the dwell
+     * @param elapsed   the time actually spent on the band
+     */
+    public synchronized void recordDwell(String frequency, long packets, long frames, Duration elapsed) {
+        for (BandState band : bands) {
+            if (band.frequency.equals(frequency)) {
+                long elapsedMillis = Math.max(1, elapsed.toMillis());
+                double rate = packets * MILLISECONDS_PER_MINUTE / elapsedMillis;
+                band.packetsPerMinute = band.measured ? rateSmoothing * rate + (1 - rateSmoothing) * band.packetsPerMinute : rate;
+                band.measured = true;
+                band.totalPackets += packets;
+                band.totalFrames += frames;
+                band.totalDwellMillis += elapsedMillis;
+                log.debug("Band {}: {} packets and {} frames in {} ms, {} packets per minute", frequency, packets, frames, elapsedMillis, band.packetsPerMinute);
+                return;
+            }
+        }
+    }
+
+    /**
+     * Returns the capture statistics of every band, for tuning the schedule.
+     *
+     * @return the statistics in the order the bands are configured
+     */
+    public synchronized List<BandStatistics> getBandStatistics() {
+        List<BandStatistics> statistics = new ArrayList<>(bands.size());
+        for (BandState band : bands) {
+            statistics.add(new BandStatistics(band.frequency, band.measured ? band.packetsPerMinute : 0.0,
+                    band.totalPackets, band.totalFrames, band.totalDwellMillis, isHopping() ? dwellMillis(band) : 0));
+        }
+        return statistics;
+    }
+
+    private long dwellMillis(BandState band) {
+        double totalWeight = 0;
+        for (BandState other : bands) {
+            totalWeight += other.weight();
+        }
+        long share = Math.round(cycleMillis * band.weight() / totalWeight);
+        return Math.min(band.maxDwellMillis, Math.max(band.minDwellMillis, share));
+    }
+
+    /**
+     * One stay of the receiver on a band.
+     *
+     * @param frequency the frequency to tune to
+     * @param duration  how long to stay
+     */
+    public record Dwell(String frequency, Duration duration) {
+    }
+
+    private static class BandState {
+        private final String frequency;
+        private final long minDwellMillis;
+        private final long maxDwellMillis;
+        private boolean measured;
+        private double packetsPerMinute = INITIAL_RATE;
+        private long totalPackets;
+        private long totalFrames;
+        private long totalDwellMillis;
+
+        private BandState(FrequencyHoppingProperties.Band band) {
+            this.frequency = band.getFrequency();
+            this.minDwellMillis = band.getMinDwell().toMillis();
+            this.maxDwellMillis = Math.max(minDwellMillis, band.getMaxDwell().toMillis());
+        }
+
+        private double weight() {
+            return Math.max(MIN_RATE, packetsPerMinute);
+        }
+    }
+}
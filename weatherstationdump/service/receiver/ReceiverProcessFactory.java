@@ -0,0 +1,19 @@
+package pl.mlodawski.weatherstationdump.service.receiver;
+
+import java.io.IOException;
+
+/**
+ * Starts the receiver process whose output is decoded. The default implementation runs rtl_433;
+ * tests can provide a fake process that replays recorded output.
+ */
+public interface ReceiverProcessFactory {
+
+    /**
+     * Starts a receiver tuned to the given frequency. Standard error must be merged into standard output.
+     *
+     * @param frequency the frequency in rtl_433 notation, e.g. {@code 433.902M}
+     * @return the started process
+     * @throws IOException if the process cannot be started
+     */
+    Process start(String frequency) throws IOException;
+}
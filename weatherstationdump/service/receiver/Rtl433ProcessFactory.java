@@ -0,0 +1,22 @@
+package pl.mlodawski.weatherstationdump.service.receiver;
+
+import org.springframework.stereotype.Component;
+
+import java.io.File;
+import java.io.IOException;
+
+/**
+ * Starts the rtl_433-rtlsdr executable from the {@code RTL} directory in analyze mode.
+ */
+@Component
+public class Rtl433ProcessFactory implements ReceiverProcessFactory {
+
+    @Override
+    public Process start(String frequency) throws IOException {
+        String currentPath = System.getProperty("user.dir");
+        String executablePath = currentPath + File.separator + "RTL" + File.separator + "rtl_433-rtlsdr.exe";
+        ProcessBuilder pb = new ProcessBuilder(executablePath, "-f", frequency, "-A", "-R", "0");
+        pb.redirectErrorStream(true);
+        return pb.start();
+    }
+}
@@ -0,0 +1,22 @@
+package pl.mlodawski.weatherstationdump.service.registry;
+
+import org.springframework.context.ApplicationEvent;
+import pl.mlodawski.weatherstationdump.model.SensorKey;
+
+/**
+ * Published when the sensor registry stops tracking a sensor, so other components can drop
+ * the state they keep for it.
+ */
+public class SensorEvictedEvent extends ApplicationEvent {
+
+    private final SensorKey sensorKey;
+
+    public SensorEvictedEvent(Object source, SensorKey sensorKey) {
+        super(source);
+        this.sensorKey = sensorKey;
+    }
+
+    public SensorKey getSensorKey() {
+        return sensorKey;
+    }
+}
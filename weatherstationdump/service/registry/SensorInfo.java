@@ -0,0 +1,17 @@
+package pl.mlodawski.weatherstationdump.service.registry;
+
+import pl.mlodawski.weatherstationdump.model.DecodedData;
+import pl.mlodawski.weatherstationdump.model.SensorKey;
+
+/**
+ * What the registry knows about one sensor.
+ *
+ * @param sensor       the sensor
+ * @param firstSeen    the time of the first reading, in milliseconds since the epoch
+ * @param lastSeen     the time of the latest reading, in milliseconds since the epoch
+ * @param readingCount the number of readings received
+ * @param pinned       whether the sensor is protected from eviction
+ * @param latest       the latest reading
+ */
+public record SensorInfo(SensorKey sensor, long firstSeen, long lastSeen, long readingCount, boolean pinned, DecodedData latest) {
+}
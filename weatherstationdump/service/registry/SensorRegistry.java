@@ -0,0 +1,221 @@
+package pl.mlodawski.weatherstationdump.service.registry;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+import pl.mlodawski.weatherstationdump.model.DecodedData;
+import pl.mlodawski.weatherstationdump.model.SensorKey;
+import pl.mlodawski.weatherstationdump.service.DecodedDataEvent;
+import pl.mlodawski.weatherstationdump.service.snapshot.SnapshotIO;
+import pl.mlodawski.weatherstationdump.service.snapshot.SnapshotParticipant;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+
+/**
+ * Tracks every sensor heard by the receiver together with its latest reading.
+ * <p>
+ * In {@code -A} mode the receiver also picks up neighbours' sensors and random IDs produced by corrupted
+ * frames, so the number of tracked sensors is bounded. Unpinned sensors are kept in the order they were
+ * last heard. Every reading moves its sensor to the end, and then a few sensors at the head are checked:
+ * they are evicted if they have been silent longer than the idle TTL, or if the registry is above its cap.
+ * Eviction therefore costs a constant amount of work per reading and memory stays flat however much
+ * noise arrives. Pinned sensors are kept apart and never evicted.
+ * </p>
+ */
+@Service
+@Slf4j
+public class SensorRegistry implements SnapshotParticipant {
+
+    /**
+     * The maximum number of idle sensors checked per reading.
+     */
+    private static final int IDLE_CHECKS_PER_READING = 4;
+
+    private final ApplicationEventPublisher eventPublisher;
+    private final int maxSensors;
+    private final long idleTtlMillis;
+    private final Set<SensorKey> pinnedKeys;
+
+    private final Map<SensorKey, Entry> pinned = new HashMap<>();
+    private final LinkedHashMap<SensorKey, Entry> unpinned = new LinkedHashMap<>();
+    private long evictedCount;
+
+    @Autowired
+    public SensorRegistry(SensorRegistryProperties properties, ApplicationEventPublisher eventPublisher) {
+        this.eventPublisher = eventPublisher;
+        this.maxSensors = Math.max(1, properties.getMaxSensors());
+        this.idleTtlMillis = properties.getIdleTtl().toMillis();
+        this.pinnedKeys = Set.copyOf(properties.getPinned());
+    }
+
+    /**
+     * Records every newly decoded reading. Late readings only belong to the history and are skipped.
+     *
+     * @param event The DecodedDataEvent object representing the occurrence of the event.
+     */
+    @EventListener
+    public void onDecodedData(DecodedDataEvent event) {
+        if (!event.isLate() && event.getSource() instanceof DecodedData decodedData) {
+            record(decodedData);
+        }
+    }
+
+    /**
+     * Records a reading for its sensor and evicts idle or surplus sensors.
+     *
+     * @param decodedData the decoded reading
+     */
+    public void record(DecodedData decodedData) {
+        SensorKey sensorKey = SensorKey.of(decodedData);
+        List<SensorKey> evicted;
+        synchronized (this) {
+            Entry entry;
+            if (pinnedKeys.contains(sensorKey)) {
+                entry = pinned.computeIfAbsent(sensorKey, key -> new Entry(decodedData.getTimestamp()));
+            } else {
+                entry = unpinned.remove(sensorKey);
+                if (entry == null) {
+                    entry = new Entry(decodedData.getTimestamp());
+                }
+                unpinned.put(sensorKey, entry);
+            }
+            if (decodedData.getTimestamp() >= entry.lastSeen) {
+                entry.lastSeen = decodedData.getTimestamp();
+                entry.latest = decodedData;
+            }
+            entry.readingCount++;
+            evicted = evict(decodedData.getTimestamp());
+        }
+        for (SensorKey evictedKey : evicted) {
+            eventPublisher.publishEvent(new SensorEvictedEvent(this, evictedKey));
+        }
+    }
+
+    /**
+     * Retrieves what is known about a sensor.
+     *
+     * @param sensorKey the sensor
+     * @return the sensor information, or an empty Optional if the sensor is not tracked
+     */
+    public synchronized Optional<SensorInfo> find(SensorKey sensorKey) {
+        Entry entry = pinned.get(sensorKey);
+        if (entry == null) {
+            entry = unpinned.get(sensorKey);
+        }
+        return Optional.ofNullable(entry).map(found -> found.toInfo(sensorKey, pinnedKeys.contains(sensorKey)));
+    }
+
+    /**
+     * Lists all tracked sensors, pinned ones first, then the others from least to most recently heard.
+     *
+     * @return the tracked sensors
+     */
+    public synchronized List<SensorInfo> getSensors() {
+        List<SensorInfo> sensors = new ArrayList<>(pinned.size() + unpinned.size());
+        pinned.forEach((key, entry) -> sensors.add(entry.toInfo(key, true)));
+        unpinned.forEach((key, entry) -> sensors.add(entry.toInfo(key, false)));
+        return sensors;
+    }
+
+    /**
+     * Returns the number of sensors evicted since startup.
+     *
+     * @return the number of evicted sensors
+     */
+    public synchronized long getEvictedCount() {
+        return evictedCount;
+    }
+
+    @Override
+    public String snapshotSection() {
+        return "sensors";
+    }
+
+    @Override
+    public void writeSnapshot(DataOutput out) throws IOException {
+        List<SensorInfo> sensors = getSensors();
+        out.writeInt(sensors.size());
+        for (SensorInfo sensor : sensors) {
+            SnapshotIO.writeSensorKey(out, sensor.sensor());
+            out.writeLong(sensor.firstSeen());
+            out.writeLong(sensor.lastSeen());
+            out.writeLong(sensor.readingCount());
+            SnapshotIO.writeDecodedData(out, sensor.latest());
+        }
+    }
+
+    /**
+     * Replaces the tracked sensors with the ones of the snapshot. Whether a sensor is pinned follows the
+     * current configuration, and the sensors keep the order in which they were last heard.
+     */
+    @Override
+    public synchronized void restoreSnapshot(DataInput in) throws IOException {
+        pinned.clear();
+        unpinned.clear();
+        int sensorCount = in.readInt();
+        for (int i = 0; i < sensorCount; i++) {
+            SensorKey sensorKey = SnapshotIO.readSensorKey(in);
+            Entry entry = new Entry(in.readLong());
+            entry.lastSeen = in.readLong();
+            entry.readingCount = in.readLong();
+            entry.latest = SnapshotIO.readDecodedData(in);
+            if (pinnedKeys.contains(sensorKey)) {
+                pinned.put(sensorKey, entry);
+            } else {
+                unpinned.put(sensorKey, entry);
+            }
+        }
+    }
+
+    private List<SensorKey> evict(long now) {
+        List<SensorKey> evicted = List.of();
+        Iterator<Map.Entry<SensorKey, Entry>> iterator = unpinned.entrySet().iterator();
+        int idleChecks = 0;
+        while (iterator.hasNext()) {
+            Map.Entry<SensorKey, Entry> eldest = iterator.next();
+            boolean overCap = pinned.size() + unpinned.size() > maxSensors;
+            boolean idle = idleChecks < IDLE_CHECKS_PER_READING && now - eldest.getValue().lastSeen > idleTtlMillis;
+            if (!overCap && !idle) {
+                break;
+            }
+            if (!overCap) {
+                idleChecks++;
+            }
+            iterator.remove();
+            if (evicted.isEmpty()) {
+                evicted = new ArrayList<>();
+            }
+            evicted.add(eldest.getKey());
+            evictedCount++;
+            log.debug("Evicted sensor {} ({})", eldest.getKey(), overCap ? "over capacity" : "idle");
+        }
+        return evicted;
+    }
+
+    private static class Entry {
+        private final long firstSeen;
+        private long lastSeen;
+        private long readingCount;
+        private DecodedData latest;
+
+        private Entry(long firstSeen) {
+            this.firstSeen = firstSeen;
+        }
+
+        private SensorInfo toInfo(SensorKey sensorKey, boolean pinned) {
+            return new SensorInfo(sensorKey, firstSeen, lastSeen, readingCount, pinned, latest);
+        }
+    }
+}
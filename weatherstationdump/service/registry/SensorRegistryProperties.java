@@ -0,0 +1,30 @@
+package pl.mlodawski.weatherstationdump.service.registry;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import pl.mlodawski.weatherstationdump.model.SensorKey;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Configuration of the sensor registry, bound from the {@code weather-station.sensors} prefix.
+ */
+@Data
+@ConfigurationProperties(prefix = "weather-station.sensors")
+public class SensorRegistryProperties {
+
+    /**
+     * The maximum number of tracked sensors. Above it the least recently heard unpinned sensor is evicted.
+     */
+    private int maxSensors = 256;
+    /**
+     * How long an unpinned sensor may stay silent before it is evicted.
+     */
+    private Duration idleTtl = Duration.ofHours(6);
+    /**
+     * The sensors that are never evicted, e.g. our own ones.
+     */
+    private List<SensorKey> pinned = new ArrayList<>();
+}
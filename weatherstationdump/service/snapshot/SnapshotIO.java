@@ -0,0 +1,84 @@
+package pl.mlodawski.weatherstationdump.service.snapshot;
+
+import pl.mlodawski.weatherstationdump.model.DecodedData;
+import pl.mlodawski.weatherstationdump.model.SensorKey;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+
+/**
+ * Binary encoding of the model types shared by the snapshot sections.
+ */
+public final class SnapshotIO {
+
+    private SnapshotIO() {
+    }
+
+    public static void writeSensorKey(DataOutput out, SensorKey sensorKey) throws IOException {
+        out.writeInt(sensorKey.id());
+        out.writeInt(sensorKey.channel());
+    }
+
+    public static SensorKey readSensorKey(DataInput in) throws IOException {
+        return new SensorKey(in.readInt(), in.readInt());
+    }
+
+    /**
+     * Writes a reading, which may be null.
+     *
+     * @param out         the output
+     * @param decodedData the reading or null
+     * @throws IOException if writing fails
+     */
+    public static void writeDecodedData(DataOutput out, DecodedData decodedData) throws IOException {
+        out.writeBoolean(decodedData != null);
+        if (decodedData == null) {
+            return;
+        }
+        writeNullableString(out, decodedData.getModel());
+        out.writeInt(decodedData.getId());
+        out.writeInt(decodedData.getChannel());
+        out.writeBoolean(decodedData.isBatteryOk());
+        out.writeDouble(decodedData.getTemperatureC());
+        out.writeInt(decodedData.getHumidity());
+        out.writeLong(decodedData.getTimestamp());
+        writeNullableString(out, decodedData.getFrequency());
+        writeNullableString(out, decodedData.getReceiverId());
+    }
+
+    /**
+     * Reads a reading written by {@link #writeDecodedData(DataOutput, DecodedData)}.
+     *
+     * @param in the input
+     * @return the reading or null
+     * @throws IOException if reading fails
+     */
+    public static DecodedData readDecodedData(DataInput in) throws IOException {
+        if (!in.readBoolean()) {
+            return null;
+        }
+        DecodedData decodedData = new DecodedData();
+        decodedData.setModel(readNullableString(in));
+        decodedData.setId(in.readInt());
+        decodedData.setChannel(in.readInt());
+        decodedData.setBatteryOk(in.readBoolean());
+        decodedData.setTemperatureC(in.readDouble());
+        decodedData.setHumidity(in.readInt());
+        decodedData.setTimestamp(in.readLong());
+        decodedData.setFrequency(readNullableString(in));
+        decodedData.setReceiverId(readNullableString(in));
+        return decodedData;
+    }
+
+    public static void writeNullableString(DataOutput out, String value) throws IOException {
+        out.writeBoolean(value != null);
+        if (value != null) {
+            out.writeUTF(value);
+        }
+    }
+
+    public static String readNullableString(DataInput in) throws IOException {
+        return in.readBoolean() ? in.readUTF() : null;
+    }
+}
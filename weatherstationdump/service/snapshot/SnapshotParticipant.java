@@ -0,0 +1,36 @@
+package pl.mlodawski.weatherstationdump.service.snapshot;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+
+/**
+ * A component whose in-memory state is written to the state snapshot and restored from it on startup.
+ * Every participant owns one named section of the snapshot file.
+ */
+public interface SnapshotParticipant {
+
+    /**
+     * Returns the name of the section holding the state of this participant. Must be unique and stable.
+     *
+     * @return the section name
+     */
+    String snapshotSection();
+
+    /**
+     * Writes the current state.
+     *
+     * @param out the output of the section
+     * @throws IOException if writing fails
+     */
+    void writeSnapshot(DataOutput out) throws IOException;
+
+    /**
+     * Replaces the current state with the one read from a snapshot. Called once on startup,
+     * before the HTTP endpoints accept requests.
+     *
+     * @param in the input of the section
+     * @throws IOException if the section cannot be read
+     */
+    void restoreSnapshot(DataInput in) throws IOException;
+}
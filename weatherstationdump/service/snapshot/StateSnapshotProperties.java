@@ -0,0 +1,27 @@
+package pl.mlodawski.weatherstationdump.service.snapshot;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+/**
+ * Configuration of the state snapshots, bound from the {@code weather-station.snapshot} prefix.
+ */
+@Data
+@ConfigurationProperties(prefix = "weather-station.snapshot")
+public class StateSnapshotProperties {
+
+    /**
+     * Whether the state is written periodically and on shutdown, and restored on startup.
+     */
+    private boolean enabled = true;
+    /**
+     * The snapshot file.
+     */
+    private String file = "state/weather-station.snapshot";
+    /**
+     * The time between two periodic snapshots.
+     */
+    private Duration interval = Duration.ofMinutes(5);
+}
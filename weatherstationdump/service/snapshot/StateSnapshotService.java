@@ -0,0 +1,271 @@
+package pl.mlodawski.weatherstationdump.service.snapshot;
+
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.SmartInitializingSingleton;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Writes the in-memory state of the service to a compact binary file and restores it on startup,
+ * so the API serves the last known readings right after a restart instead of waiting for every sensor
+ * to transmit again.
+ * <p>
+ * The file starts with a magic number, the format version and the number of sections, followed by one
+ * length-prefixed section per {@link SnapshotParticipant}. Sections of unknown participants are skipped.
+ * Sections are streamed straight to and from the file, so a large section such as the history is never held
+ * in memory a second time; the length of a section is written as a placeholder and filled in once the section
+ * is complete.
+ * The file is written to a temporary file first and then renamed over the previous snapshot, so a crash
+ * while writing never leaves a broken snapshot behind.
+ * </p>
+ * <p>
+ * The state is restored in {@link #afterSingletonsInstantiated()}, which runs before the embedded web server
+ * starts accepting connections.
+ * </p>
+ */
+@Service
+@Slf4j
+public class StateSnapshotService implements SmartInitializingSingleton {
+
+    private static final int MAGIC = 0x57534453;
+    private static final int FORMAT_VERSION = 6;
+
+    private final StateSnapshotProperties properties;
+    private final List<SnapshotParticipant> participants;
+    private final Path file;
+
+    @Autowired
+    public StateSnapshotService(StateSnapshotProperties properties, List<SnapshotParticipant> participants) {
+        this.properties = properties;
+        this.participants = participants;
+        this.file = Paths.get(properties.getFile());
+    }
+
+    /**
+     * Restores the state from the snapshot file, if there is one, and logs how long it took.
+     */
+    @Override
+    public void afterSingletonsInstantiated() {
+        if (!properties.isEnabled()) {
+            return;
+        }
+        if (!Files.exists(file)) {
+            log.info("No state snapshot found at {}, starting empty", file.toAbsolutePath());
+            return;
+        }
+        long start = System.nanoTime();
+        try {
+            int restored = restore();
+            log.info("Restored {} state snapshot sections from {} in {} ms", restored, file,
+                    TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+        } catch (IOException e) {
+            log.error("Error while restoring state snapshot from {}, starting empty", file, e);
+        }
+    }
+
+    /**
+     * Writes a snapshot periodically.
+     */
+    @Scheduled(initialDelayString = "${weather-station.snapshot.interval:PT5M}", fixedDelayString = "${weather-station.snapshot.interval:PT5M}")
+    public void scheduledSnapshot() {
+        if (properties.isEnabled()) {
+            writeSnapshotSafely();
+        }
+    }
+
+    /**
+     * Writes a final snapshot when the application shuts down.
+     */
+    @PreDestroy
+    public void shutdownSnapshot() {
+        if (properties.isEnabled()) {
+            writeSnapshotSafely();
+        }
+    }
+
+    /**
+     * Writes the state of all participants to the snapshot file.
+     *
+     * @throws IOException if the snapshot cannot be written
+     */
+    public synchronized void writeSnapshot() throws IOException {
+        long start = System.nanoTime();
+        Path directory = file.toAbsolutePath().getParent();
+        if (directory != null) {
+            Files.createDirectories(directory);
+        }
+        Path tempFile = file.resolveSibling(file.getFileName() + ".tmp");
+        try (FileChannel channel = FileChannel.open(tempFile, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING,
+                StandardOpenOption.WRITE)) {
+            DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Channels.newOutputStream(channel)));
+            out.writeInt(MAGIC);
+            out.writeInt(FORMAT_VERSION);
+            out.writeLong(System.currentTimeMillis());
+            out.writeInt(participants.size());
+            for (SnapshotParticipant participant : participants) {
+                out.writeUTF(participant.snapshotSection());
+                out.flush();
+                long lengthPosition = channel.position();
+                out.writeLong(0);
+                participant.writeSnapshot(out);
+                out.flush();
+                writeLength(channel, lengthPosition, channel.position() - lengthPosition - Long.BYTES);
+            }
+            out.flush();
+            channel.force(true);
+        }
+        Files.move(tempFile, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        log.debug("Wrote state snapshot of {} bytes in {} ms", Files.size(file), TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+    }
+
+    /**
+     * Fills in the length placeholder of a section, without moving the position of the channel.
+     */
+    private static void writeLength(FileChannel channel, long position, long length) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(Long.BYTES).putLong(0, length);
+        while (buffer.hasRemaining()) {
+            channel.write(buffer, position + buffer.position());
+        }
+    }
+
+    private void writeSnapshotSafely() {
+        try {
+            writeSnapshot();
+        } catch (IOException e) {
+            log.error("Error while writing state snapshot to {}", file, e);
+        }
+    }
+
+    private int restore() throws IOException {
+        Map<String, SnapshotParticipant> bySection = new HashMap<>();
+        for (SnapshotParticipant participant : participants) {
+            bySection.put(participant.snapshotSection(), participant);
+        }
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(file)))) {
+            if (in.readInt() != MAGIC) {
+                throw new IOException("Not a state snapshot file");
+            }
+            int version = in.readInt();
+            if (version != FORMAT_VERSION) {
+                log.warn("Ignoring state snapshot with format version {}, expected {}", version, FORMAT_VERSION);
+                return 0;
+            }
+            long createdAt = in.readLong();
+            int sectionCount = in.readInt();
+            int restored = 0;
+            for (int i = 0; i < sectionCount; i++) {
+                String section = in.readUTF();
+                SectionInputStream sectionIn = new SectionInputStream(in, in.readLong());
+                SnapshotParticipant participant = bySection.get(section);
+                if (participant == null) {
+                    log.warn("Skipping unknown state snapshot section {}", section);
+                } else {
+                    try {
+                        participant.restoreSnapshot(new DataInputStream(sectionIn));
+                        restored++;
+                    } catch (IOException | RuntimeException e) {
+                        log.error("Error while restoring state snapshot section {}", section, e);
+                    }
+                }
+                sectionIn.skipRemaining();
+            }
+            log.info("State snapshot was taken {} s ago", TimeUnit.MILLISECONDS.toSeconds(System.currentTimeMillis() - createdAt));
+            return restored;
+        }
+    }
+
+    /**
+     * Reads one section of the snapshot file, so a participant can neither read past its section
+     * nor leave part of it unread for the next one.
+     */
+    private static class SectionInputStream extends FilterInputStream {
+
+        private long remaining;
+
+        private SectionInputStream(InputStream in, long length) {
+            super(in);
+            this.remaining = length;
+        }
+
+        @Override
+        public int read() throws IOException {
+            if (remaining == 0) {
+                return -1;
+            }
+            int b = in.read();
+            if (b < 0) {
+                throw new EOFException("State snapshot section is truncated");
+            }
+            remaining--;
+            return b;
+        }
+
+        @Override
+        public int read(byte[] buffer, int offset, int length) throws IOException {
+            if (remaining == 0) {
+                return -1;
+            }
+            int read = in.read(buffer, offset, (int) Math.min(length, remaining));
+            if (read < 0) {
+                throw new EOFException("State snapshot section is truncated");
+            }
+            remaining -= read;
+            return read;
+        }
+
+        @Override
+        public long skip(long n) throws IOException {
+            long skipped = in.skip(Math.min(n, remaining));
+            remaining -= skipped;
+            return skipped;
+        }
+
+        @Override
+        public int available() throws IOException {
+            return (int) Math.min(in.available(), remaining);
+        }
+
+        @Override
+        public boolean markSupported() {
+            return false;
+        }
+
+        @Override
+        public void close() {
+        }
+
+        /**
+         * Skips what the participant left unread of the section.
+         */
+        private void skipRemaining() throws IOException {
+            while (remaining > 0) {
+                if (skip(remaining) == 0 && read() < 0) {
+                    return;
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,44 @@
+package pl.mlodawski.weatherstationdump.service.timeseries;
+
+/**
+ * Reads a bit stream written by {@link BitOutput}.
+ */
+class BitInput {
+
+    private final long[] words;
+    private int position;
+
+    BitInput(long[] words) {
+        this.words = words;
+    }
+
+    boolean readBit() {
+        boolean bit = (words[position >>> 6] & (1L << (63 - (position & 63)))) != 0;
+        position++;
+        return bit;
+    }
+
+    /**
+     * Reads an unsigned value of the given width.
+     *
+     * @param bits the number of bits to read, between 0 and 64
+     * @return the value
+     */
+    long readBits(int bits) {
+        if (bits == 0) {
+            return 0;
+        }
+        int offset = position & 63;
+        int index = position >>> 6;
+        int available = 64 - offset;
+        long value;
+        if (bits <= available) {
+            value = words[index] >>> (available - bits);
+        } else {
+            int spill = bits - available;
+            value = (words[index] << spill) | (words[index + 1] >>> (64 - spill));
+        }
+        position += bits;
+        return bits == 64 ? value : value & ((1L << bits) - 1);
+    }
+}
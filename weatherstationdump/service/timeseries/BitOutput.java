@@ -0,0 +1,87 @@
+package pl.mlodawski.weatherstationdump.service.timeseries;
+
+import java.util.Arrays;
+
+/**
+ * An append-only bit stream backed by a growable array of longs, written most significant bit first.
+ * <p>
+ * Bits are only ever appended, so a reader that captured {@link #words()} and {@link #size()} keeps seeing
+ * a consistent prefix of the stream while the writer continues.
+ * </p>
+ */
+class BitOutput {
+
+    private long[] words;
+    private int size;
+
+    BitOutput(int initialWords) {
+        this.words = new long[Math.max(1, initialWords)];
+    }
+
+    BitOutput(long[] words, int size) {
+        this.words = words;
+        this.size = size;
+    }
+
+    /**
+     * Appends a single bit.
+     *
+     * @param bit the bit to append
+     */
+    void writeBit(boolean bit) {
+        ensureCapacity(1);
+        if (bit) {
+            words[size >>> 6] |= 1L << (63 - (size & 63));
+        }
+        size++;
+    }
+
+    /**
+     * Appends the lowest bits of a value.
+     *
+     * @param value the value
+     * @param bits  the number of low bits of the value to append, between 0 and 64
+     */
+    void writeBits(long value, int bits) {
+        if (bits == 0) {
+            return;
+        }
+        ensureCapacity(bits);
+        if (bits < 64) {
+            value &= (1L << bits) - 1;
+        }
+        int offset = size & 63;
+        int index = size >>> 6;
+        int free = 64 - offset;
+        if (bits <= free) {
+            words[index] |= value << (free - bits);
+        } else {
+            int spill = bits - free;
+            words[index] |= value >>> spill;
+            words[index + 1] |= value << (64 - spill);
+        }
+        size += bits;
+    }
+
+    /**
+     * Shrinks the backing array to the bits written so far.
+     */
+    void trim() {
+        words = Arrays.copyOf(words, (size + 63) >>> 6);
+    }
+
+    long[] words() {
+        return words;
+    }
+
+    int size() {
+        return size;
+    }
+
+    private void ensureCapacity(int bits) {
+        int required = (size + bits + 63) >>> 6;
+        if (required > words.length) {
+            words = Arrays.copyOf(words, Math.max(required, words.length * 2));
+        }
+    }
+}
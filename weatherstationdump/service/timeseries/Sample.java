@@ -0,0 +1,24 @@
+package pl.mlodawski.weatherstationdump.service.timeseries;
+
+import pl.mlodawski.weatherstationdump.model.DecodedData;
+
+/**
+ * One point of a sensor's history.
+ *
+ * @param timestamp    the time of the reading in milliseconds since the epoch
+ * @param temperatureC the temperature in Celsius
+ * @param humidity     the humidity level
+ * @param batteryOk    whether the battery was ok
+ */
+public record Sample(long timestamp, double temperatureC, int humidity, boolean batteryOk) {
+
+    /**
+     * Creates the sample of a decoded reading.
+     *
+     * @param decodedData the decoded reading
+     * @return the sample
+     */
+    public static Sample of(DecodedData decodedData) {
+        return new Sample(decodedData.getTimestamp(), decodedData.getTemperatureC(), decodedData.getHumidity(), decodedData.isBatteryOk());
+    }
+}
@@ -0,0 +1,166 @@
+package pl.mlodawski.weatherstationdump.service.timeseries;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+
+/**
+ * The compressed history of one sensor: a list of sealed blocks followed by the block currently appended to.
+ */
+class SensorSeries {
+
+    private final int blockCapacity;
+    private final List<SeriesBlock> blocks = new ArrayList<>();
+    private SeriesBlock current;
+
+    SensorSeries(int blockCapacity) {
+        this.blockCapacity = blockCapacity;
+    }
+
+    /**
+     * Appends a sample, sealing the current block and starting a new one when it is full.
+     *
+     * @param sample the sample
+     * @return true if the sample filled and sealed the current block
+     */
+    synchronized boolean append(Sample sample) {
+        if (current == null) {
+            current = new SeriesBlock(blockCapacity);
+            blocks.add(current);
+        }
+        current.append(sample);
+        if (current.isFull()) {
+            current.seal();
+            current = null;
+            return true;
+        }
+        return false;
+    }
+
+    /**
+     * Drops the sealed blocks whose samples are all older than the given time.
+     *
+     * @param oldestAllowed the time in milliseconds since the epoch before which samples may be dropped
+     * @return the number of dropped blocks
+     */
+    synchronized int dropBefore(long oldestAllowed) {
+        int dropped = 0;
+        while (dropped < blocks.size() && blocks.get(dropped).isSealed() && blocks.get(dropped).maxTimestamp() < oldestAllowed) {
+            dropped++;
+        }
+        blocks.subList(0, dropped).clear();
+        return dropped;
+    }
+
+    /**
+     * Creates an iterator over the samples in the given time range. Blocks outside of the range are skipped
+     * without decoding, and the samples of the others are decoded as the iterator advances.
+     *
+     * @param from the start of the range in milliseconds since the epoch, inclusive
+     * @param to   the end of the range in milliseconds since the epoch, inclusive
+     * @return the iterator
+     */
+    Iterator<Sample> range(long from, long to) {
+        List<Iterator<Sample>> iterators = new ArrayList<>();
+        synchronized (this) {
+            for (SeriesBlock block : blocks) {
+                if (block.count() > 0 && block.maxTimestamp() >= from && block.minTimestamp() <= to) {
+                    iterators.add(block.iterator());
+                }
+            }
+        }
+        return iterators.isEmpty() ? Collections.emptyIterator() : new RangeIterator(iterators.iterator(), from, to);
+    }
+
+    /**
+     * Writes all blocks of the series.
+     *
+     * @param out the output
+     * @throws IOException if writing fails
+     */
+    synchronized void writeTo(DataOutput out) throws IOException {
+        out.writeInt(blocks.size());
+        for (SeriesBlock block : blocks) {
+            block.writeTo(out);
+        }
+    }
+
+    /**
+     * Reads a series written by {@link #writeTo(DataOutput)}.
+     *
+     * @param in            the input
+     * @param blockCapacity the capacity of new blocks
+     * @return the series
+     * @throws IOException if reading fails
+     */
+    static SensorSeries readFrom(DataInput in, int blockCapacity) throws IOException {
+        SensorSeries series = new SensorSeries(blockCapacity);
+        int blockCount = in.readInt();
+        for (int i = 0; i < blockCount; i++) {
+            series.blocks.add(SeriesBlock.readFrom(in, blockCapacity));
+        }
+        if (!series.blocks.isEmpty() && !series.blocks.get(blockCount - 1).isSealed()) {
+            series.current = series.blocks.get(blockCount - 1);
+        }
+        return series;
+    }
+
+    synchronized long sizeInBytes() {
+        long size = 0;
+        for (SeriesBlock block : blocks) {
+            size += block.sizeInBytes();
+        }
+        return size;
+    }
+
+    private static class RangeIterator implements Iterator<Sample> {
+        private final Iterator<Iterator<Sample>> blocks;
+        private final long from;
+        private final long to;
+        private Iterator<Sample> block = Collections.emptyIterator();
+        private Sample next;
+
+        private RangeIterator(Iterator<Iterator<Sample>> blocks, long from, long to) {
+            this.blocks = blocks;
+            this.from = from;
+            this.to = to;
+            advance();
+        }
+
+        @Override
+        public boolean hasNext() {
+            return next != null;
+        }
+
+        @Override
+        public Sample next() {
+            if (next == null) {
+                throw new NoSuchElementException();
+            }
+            Sample sample = next;
+            advance();
+            return sample;
+        }
+
+        private void advance() {
+            next = null;
+            while (next == null) {
+                while (!block.hasNext()) {
+                    if (!blocks.hasNext()) {
+                        return;
+                    }
+                    block = blocks.next();
+                }
+                Sample sample = block.next();
+                if (sample.timestamp() >= from && sample.timestamp() <= to) {
+                    next = sample;
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,378 @@
+package pl.mlodawski.weatherstationdump.service.timeseries;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+/**
+ * An append-only block of compressed samples, sealed once it holds its capacity.
+ * <p>
+ * Timestamps and temperatures are interleaved in one bit stream following the Gorilla scheme: timestamps as
+ * delta-of-delta with variable width buckets. The decoder reports temperatures in tenths of a degree, so
+ * a temperature is stored as the change in tenths from the previous one, again with variable width buckets;
+ * a value that is not a whole number of tenths falls back to its full 64 bits. Humidity and battery status follow in the same stream: a single bit when neither changed,
+ * three bits when the humidity moved by one, and the full values otherwise, so the usual jitter of a humidity
+ * sensor stays cheap. Regular readings thus take a few bytes per sample.
+ * </p>
+ * <p>
+ * Appends must be serialized by the caller. Iterators capture the written prefix when they are created and
+ * decode it lazily, so they may run concurrently with further appends.
+ * </p>
+ */
+class SeriesBlock {
+
+    private static final int HUMIDITY_BITS = 7;
+    private static final int MAX_HUMIDITY = (1 << HUMIDITY_BITS) - 1;
+    /**
+     * Temperatures stored as tenths must fit into 32 bits.
+     */
+    private static final double MAX_TENTHS_VALUE = Integer.MAX_VALUE / 10.0;
+
+    private final int capacity;
+    private final BitOutput bits;
+    private int count;
+    private long minTimestamp = Long.MAX_VALUE;
+    private long maxTimestamp = Long.MIN_VALUE;
+    private boolean sealed;
+
+    private long previousTimestamp;
+    private long previousDelta;
+    private long previousValueBits;
+    private int previousHumidity;
+    private boolean previousBatteryOk;
+
+    SeriesBlock(int capacity) {
+        this(capacity, new BitOutput(Math.max(4, capacity / 2)));
+    }
+
+    private SeriesBlock(int capacity, BitOutput bits) {
+        this.capacity = capacity;
+        this.bits = bits;
+    }
+
+    /**
+     * Appends a sample to the block. The humidity is stored between 0 and 127.
+     *
+     * @param sample the sample
+     * @throws IllegalStateException if the block is sealed
+     */
+    void append(Sample sample) {
+        if (sealed) {
+            throw new IllegalStateException("Block is sealed");
+        }
+        if (count == 0) {
+            bits.writeBits(sample.timestamp(), 64);
+            previousValueBits = Double.doubleToRawLongBits(sample.temperatureC());
+            bits.writeBits(previousValueBits, 64);
+            writeFullStatus(sample);
+        } else {
+            writeTimestamp(sample.timestamp());
+            writeValue(Double.doubleToRawLongBits(sample.temperatureC()));
+            writeStatus(sample);
+        }
+        previousTimestamp = sample.timestamp();
+        minTimestamp = Math.min(minTimestamp, sample.timestamp());
+        maxTimestamp = Math.max(maxTimestamp, sample.timestamp());
+        count++;
+    }
+
+    /**
+     * Trims the block to its content and rejects further appends.
+     */
+    void seal() {
+        sealed = true;
+        bits.trim();
+    }
+
+    boolean isFull() {
+        return count >= capacity;
+    }
+
+    boolean isSealed() {
+        return sealed;
+    }
+
+    int count() {
+        return count;
+    }
+
+    long minTimestamp() {
+        return minTimestamp;
+    }
+
+    long maxTimestamp() {
+        return maxTimestamp;
+    }
+
+    /**
+     * Estimates the memory taken by the compressed data of the block.
+     *
+     * @return the size in bytes
+     */
+    long sizeInBytes() {
+        return (long) bits.words().length * Long.BYTES;
+    }
+
+    /**
+     * Writes the block, including the encoder state needed to continue appending to an open block.
+     *
+     * @param out the output
+     * @throws IOException if writing fails
+     */
+    void writeTo(DataOutput out) throws IOException {
+        out.writeInt(count);
+        out.writeBoolean(sealed);
+        out.writeLong(minTimestamp);
+        out.writeLong(maxTimestamp);
+        out.writeLong(previousTimestamp);
+        out.writeLong(previousDelta);
+        out.writeLong(previousValueBits);
+        out.writeInt(previousHumidity);
+        out.writeBoolean(previousBatteryOk);
+        out.writeInt(bits.size());
+        long[] words = bits.words();
+        int wordCount = (bits.size() + 63) >>> 6;
+        for (int i = 0; i < wordCount; i++) {
+            out.writeLong(words[i]);
+        }
+    }
+
+    /**
+     * Reads a block written by {@link #writeTo(DataOutput)}.
+     *
+     * @param in       the input
+     * @param capacity the capacity of the block
+     * @return the block
+     * @throws IOException if reading fails
+     */
+    static SeriesBlock readFrom(DataInput in, int capacity) throws IOException {
+        int count = in.readInt();
+        boolean sealed = in.readBoolean();
+        long minTimestamp = in.readLong();
+        long maxTimestamp = in.readLong();
+        long previousTimestamp = in.readLong();
+        long previousDelta = in.readLong();
+        long previousValueBits = in.readLong();
+        int previousHumidity = in.readInt();
+        boolean previousBatteryOk = in.readBoolean();
+        int bitCount = in.readInt();
+        long[] words = new long[(bitCount + 63) >>> 6];
+        for (int i = 0; i < words.length; i++) {
+            words[i] = in.readLong();
+        }
+        SeriesBlock block = new SeriesBlock(capacity, new BitOutput(words, bitCount));
+        block.count = count;
+        block.sealed = sealed;
+        block.minTimestamp = minTimestamp;
+        block.maxTimestamp = maxTimestamp;
+        block.previousTimestamp = previousTimestamp;
+        block.previousDelta = previousDelta;
+        block.previousValueBits = previousValueBits;
+        block.previousHumidity = previousHumidity;
+        block.previousBatteryOk = previousBatteryOk;
+        return block;
+    }
+
+    /**
+     * Creates an iterator decoding the samples written so far.
+     *
+     * @return the iterator
+     */
+    Iterator<Sample> iterator() {
+        return new BlockIterator(bits.words(), count);
+    }
+
+    private void writeTimestamp(long timestamp) {
+        long delta = timestamp - previousTimestamp;
+        long deltaOfDelta = delta - previousDelta;
+        previousDelta = delta;
+        if (deltaOfDelta == 0) {
+            bits.writeBit(false);
+        } else if (deltaOfDelta >= -63 && deltaOfDelta <= 64) {
+            bits.writeBits(0b10, 2);
+            bits.writeBits(deltaOfDelta + 63, 7);
+        } else if (deltaOfDelta >= -255 && deltaOfDelta <= 256) {
+            bits.writeBits(0b110, 3);
+            bits.writeBits(deltaOfDelta + 255, 9);
+        } else if (deltaOfDelta >= -2047 && deltaOfDelta <= 2048) {
+            bits.writeBits(0b1110, 4);
+            bits.writeBits(deltaOfDelta + 2047, 12);
+        } else if (deltaOfDelta >= -524_287 && deltaOfDelta <= 524_288) {
+            bits.writeBits(0b11110, 5);
+            bits.writeBits(deltaOfDelta + 524_287, 20);
+        } else {
+            bits.writeBits(0b11111, 5);
+            bits.writeBits(deltaOfDelta, 64);
+        }
+    }
+
+    private void writeValue(long valueBits) {
+        long previous = previousValueBits;
+        previousValueBits = valueBits;
+        if (valueBits == previous) {
+            bits.writeBit(false);
+            return;
+        }
+        double value = Double.longBitsToDouble(valueBits);
+        if (!isTenths(value)) {
+            bits.writeBits(0b1111, 4);
+            bits.writeBits(valueBits, 64);
+            return;
+        }
+        long tenths = Math.round(value * 10);
+        double previousValue = Double.longBitsToDouble(previous);
+        if (!isTenths(previousValue)) {
+            bits.writeBits(0b1110, 4);
+            bits.writeBits(tenths, 32);
+            return;
+        }
+        long delta = tenths - Math.round(previousValue * 10);
+        if (delta >= -8 && delta <= 7) {
+            bits.writeBits(0b10, 2);
+            bits.writeBits(delta + 8, 4);
+        } else if (delta >= -128 && delta <= 127) {
+            bits.writeBits(0b110, 3);
+            bits.writeBits(delta + 128, 8);
+        } else {
+            bits.writeBits(0b1110, 4);
+            bits.writeBits(tenths, 32);
+        }
+    }
+
+    /**
+     * Checks whether a value is a whole number of tenths that decodes back to exactly the same double.
+     */
+    private static boolean isTenths(double value) {
+        return Math.abs(value) < MAX_TENTHS_VALUE
+                && Double.doubleToRawLongBits(Math.round(value * 10) / 10.0) == Double.doubleToRawLongBits(value);
+    }
+
+    private void writeStatus(Sample sample) {
+        int humidity = clampHumidity(sample.humidity());
+        if (sample.batteryOk() != previousBatteryOk || Math.abs(humidity - previousHumidity) > 1) {
+            bits.writeBits(0b11, 2);
+            writeFullStatus(sample);
+        } else if (humidity == previousHumidity) {
+            bits.writeBit(false);
+        } else {
+            bits.writeBits(0b10, 2);
+            bits.writeBit(humidity > previousHumidity);
+            previousHumidity = humidity;
+        }
+    }
+
+    private void writeFullStatus(Sample sample) {
+        previousHumidity = clampHumidity(sample.humidity());
+        previousBatteryOk = sample.batteryOk();
+        bits.writeBits(previousHumidity, HUMIDITY_BITS);
+        bits.writeBit(previousBatteryOk);
+    }
+
+    private static int clampHumidity(int humidity) {
+        return Math.max(0, Math.min(MAX_HUMIDITY, humidity));
+    }
+
+    /**
+     * Decodes the samples of a block one at a time, without materializing the block.
+     */
+    private static class BlockIterator implements Iterator<Sample> {
+
+        private final BitInput input;
+        private final int count;
+        private int index;
+
+        private long timestamp;
+        private long delta;
+        private long valueBits;
+        private int humidity;
+        private boolean batteryOk;
+
+        private BlockIterator(long[] words, int count) {
+            this.input = new BitInput(words);
+            this.count = count;
+        }
+
+        @Override
+        public boolean hasNext() {
+            return index < count;
+        }
+
+        @Override
+        public Sample next() {
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+            if (index == 0) {
+                timestamp = input.readBits(64);
+                valueBits = input.readBits(64);
+                readFullStatus();
+            } else {
+                readTimestamp();
+                readValue();
+                readStatus();
+            }
+            index++;
+            return new Sample(timestamp, Double.longBitsToDouble(valueBits), humidity, batteryOk);
+        }
+
+        private void readTimestamp() {
+            long deltaOfDelta;
+            if (!input.readBit()) {
+                deltaOfDelta = 0;
+            } else if (!input.readBit()) {
+                deltaOfDelta = input.readBits(7) - 63;
+            } else if (!input.readBit()) {
+                deltaOfDelta = input.readBits(9) - 255;
+            } else if (!input.readBit()) {
+                deltaOfDelta = input.readBits(12) - 2047;
+            } else if (!input.readBit()) {
+                deltaOfDelta = input.readBits(20) - 524_287;
+            } else {
+                deltaOfDelta = input.readBits(64);
+            }
+            delta += deltaOfDelta;
+            timestamp += delta;
+        }
+
+        private void readValue() {
+            if (!input.readBit()) {
+                return;
+            }
+            if (!input.readBit()) {
+                setTenths(previousTenths() + input.readBits(4) - 8);
+            } else if (!input.readBit()) {
+                setTenths(previousTenths() + input.readBits(8) - 128);
+            } else if (!input.readBit()) {
+                setTenths((int) input.readBits(32));
+            } else {
+                valueBits = input.readBits(64);
+            }
+        }
+
+        private long previousTenths() {
+            return Math.round(Double.longBitsToDouble(valueBits) * 10);
+        }
+
+        private void setTenths(long tenths) {
+            valueBits = Double.doubleToRawLongBits(tenths / 10.0);
+        }
+
+        private void readStatus() {
+            if (!input.readBit()) {
+                return;
+            }
+            if (input.readBit()) {
+                readFullStatus();
+            } else {
+                humidity += input.readBit() ? 1 : -1;
+            }
+        }
+
+        private void readFullStatus() {
+            humidity = (int) input.readBits(HUMIDITY_BITS);
+            batteryOk = input.readBit();
+        }
+    }
+}
@@ -0,0 +1,23 @@
+package pl.mlodawski.weatherstationdump.service.timeseries;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+/**
+ * Configuration of the in-memory reading history, bound from the {@code weather-station.history} prefix.
+ */
+@Data
+@ConfigurationProperties(prefix = "weather-station.history")
+public class TimeSeriesProperties {
+
+    /**
+     * The number of samples a block holds before it is sealed.
+     */
+    private int blockSize = 1024;
+    /**
+     * How long samples are kept.
+     */
+    private Duration retention = Duration.ofDays(180);
+}
@@ -0,0 +1,144 @@
+package pl.mlodawski.weatherstationdump.service.timeseries;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+import pl.mlodawski.weatherstationdump.model.DecodedData;
+import pl.mlodawski.weatherstationdump.model.SensorKey;
+import pl.mlodawski.weatherstationdump.service.DecodedDataEvent;
+import pl.mlodawski.weatherstationdump.service.registry.SensorEvictedEvent;
+import pl.mlodawski.weatherstationdump.service.snapshot.SnapshotIO;
+import pl.mlodawski.weatherstationdump.service.snapshot.SnapshotParticipant;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Keeps the history of every tracked sensor in compressed {@link SeriesBlock}s, so months of readings
+ * fit in memory and chart queries are served directly from it.
+ * <p>
+ * The history of a sensor is dropped when the sensor registry evicts it; pinned sensors are never evicted.
+ * Sealed blocks older than the retention period are dropped whenever a block of the sensor is sealed.
+ * </p>
+ */
+@Service
+@Slf4j
+public class TimeSeriesStore implements SnapshotParticipant {
+
+    private final int blockSize;
+    private final long retentionMillis;
+    private final Map<SensorKey, SensorSeries> series = new ConcurrentHashMap<>();
+
+    @Autowired
+    public TimeSeriesStore(TimeSeriesProperties properties) {
+        this.blockSize = Math.max(2, properties.getBlockSize());
+        this.retentionMillis = properties.getRetention().toMillis();
+    }
+
+    /**
+     * Appends every newly decoded reading to the history of its sensor.
+     *
+     * @param event The DecodedDataEvent object representing the occurrence of the event.
+     */
+    @EventListener
+    public void onDecodedData(DecodedDataEvent event) {
+        if (event.getSource() instanceof DecodedData decodedData) {
+            append(SensorKey.of(decodedData), Sample.of(decodedData));
+        }
+    }
+
+    /**
+     * Drops the history of a sensor the registry no longer tracks.
+     *
+     * @param event The SensorEvictedEvent naming the evicted sensor.
+     */
+    @EventListener
+    public void onSensorEvicted(SensorEvictedEvent event) {
+        series.remove(event.getSensorKey());
+    }
+
+    /**
+     * Appends a sample to the history of a sensor.
+     *
+     * @param sensorKey the sensor
+     * @param sample    the sample
+     */
+    public void append(SensorKey sensorKey, Sample sample) {
+        SensorSeries sensorSeries = series.computeIfAbsent(sensorKey, key -> new SensorSeries(blockSize));
+        if (sensorSeries.append(sample)) {
+            int dropped = sensorSeries.dropBefore(sample.timestamp() - retentionMillis);
+            if (dropped > 0) {
+                log.debug("Dropped {} history blocks of sensor {} by retention", dropped, sensorKey);
+            }
+        }
+    }
+
+    /**
+     * Creates an iterator decoding the samples of a sensor in the given time range, oldest first.
+     *
+     * @param sensorKey the sensor
+     * @param from      the start of the range in milliseconds since the epoch, inclusive
+     * @param to        the end of the range in milliseconds since the epoch, inclusive
+     * @return the iterator, empty if the sensor has no history
+     */
+    public Iterator<Sample> range(SensorKey sensorKey, long from, long to) {
+        SensorSeries sensorSeries = series.get(sensorKey);
+        return sensorSeries == null ? Collections.emptyIterator() : sensorSeries.range(from, to);
+    }
+
+    /**
+     * Collects the samples of a sensor in the given time range, oldest first.
+     *
+     * @param sensorKey the sensor
+     * @param from      the start of the range in milliseconds since the epoch, inclusive
+     * @param to        the end of the range in milliseconds since the epoch, inclusive
+     * @return the samples
+     */
+    public List<Sample> findRange(SensorKey sensorKey, long from, long to) {
+        List<Sample> samples = new ArrayList<>();
+        range(sensorKey, from, to).forEachRemaining(samples::add);
+        return samples;
+    }
+
+    @Override
+    public String snapshotSection() {
+        return "history";
+    }
+
+    @Override
+    public void writeSnapshot(DataOutput out) throws IOException {
+        List<Map.Entry<SensorKey, SensorSeries>> entries = new ArrayList<>(series.entrySet());
+        out.writeInt(entries.size());
+        for (Map.Entry<SensorKey, SensorSeries> entry : entries) {
+            SnapshotIO.writeSensorKey(out, entry.getKey());
+            entry.getValue().writeTo(out);
+        }
+    }
+
+    @Override
+    public void restoreSnapshot(DataInput in) throws IOException {
+        series.clear();
+        int sensorCount = in.readInt();
+        for (int i = 0; i < sensorCount; i++) {
+            SensorKey sensorKey = SnapshotIO.readSensorKey(in);
+            series.put(sensorKey, SensorSeries.readFrom(in, blockSize));
+        }
+    }
+
+    /**
+     * Estimates the memory taken by the compressed history of all sensors.
+     *
+     * @return the size in bytes
+     */
+    public long sizeInBytes() {
+        return series.values().stream().mapToLong(SensorSeries::sizeInBytes).sum();
+    }
+}